@@ -1,7 +1,11 @@
 package com.example.resource;
 
 import com.example.dto.DimensionDTO;
+import com.example.service.MemoryAwareLimiter;
 import com.example.service.ProcessingService;
+import com.example.service.TiledProcessingService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.vertx.ext.web.RoutingContext;
 import org.jboss.logging.Logger;
 
 import javax.inject.Inject;
@@ -10,9 +14,12 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 /**
  * REST endpoint for processing image dimensions.
@@ -27,15 +34,41 @@ public class ImageResource {
     @Inject
     ProcessingService processingService;
 
+    @Inject
+    TiledProcessingService tiledProcessingService;
+
+    @Inject
+    MemoryAwareLimiter limiter;
+
     /**
      * Accepts image dimensions, calculates the required buffer size securely, and simulates buffer allocation.
+     * Runs on a virtual thread and waits for in-flight memory budget before allocating, so large
+     * requests queue instead of exhausting the heap. A request larger than the whole budget is
+     * rejected with 413 up front rather than queued.
      *
      * @param dimensions The validated input DTO. The @Valid annotation triggers Bean Validation.
      * @return A response indicating success or failure.
      */
     @POST
+    @RunOnVirtualThread
     public Response processDimensions(@Valid DimensionDTO dimensions) {
+        long requiredBytes;
         try {
+            requiredBytes = processingService.calculateBufferSize(dimensions);
+        } catch (ArithmeticException e) {
+            return bufferOverflow(dimensions);
+        }
+        if (!limiter.fits(requiredBytes)) {
+            LOG.warnf("Rejected dimensions W:%d x H:%d: %d bytes exceed the processing budget",
+                    dimensions.getWidth(), dimensions.getHeight(), requiredBytes);
+            return Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+                    .entity(Map.of(
+                            "error", "Input dimensions are too large.",
+                            "details", "The required buffer exceeds the server's processing budget.")
+                    ).build();
+        }
+
+        try (MemoryAwareLimiter.Permit permit = limiter.acquire(requiredBytes)) {
             // Input validation (Bean Validation) is handled automatically by Quarkus/RESTEasy
             // before this method body executes. If validation fails, a 400 is returned automatically.
 
@@ -51,15 +84,23 @@ public class ImageResource {
             )).build();
 
         } catch (ArithmeticException e) {
-            // This catches the Integer Overflow detected by Math.multiplyExact in the service layer.
-            LOG.warnf("Security Alert: Integer overflow detected during size calculation for dimensions W:%d x H:%d",
+            return bufferOverflow(dimensions);
+
+        } catch (TimeoutException e) {
+            LOG.warnf("Processing budget exhausted; rejecting dimensions W:%d x H:%d after queueing",
                     dimensions.getWidth(), dimensions.getHeight());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(Map.of(
+                            "error", "Service busy.",
+                            "details", "Too many large requests are in progress. Please retry later.")
+                    ).build();
 
-            // Return 400 Bad Request, indicating the input is mathematically impossible to process.
-            return Response.status(Response.Status.BAD_REQUEST)
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
                     .entity(Map.of(
-                            "error", "Input dimensions are too large.",
-                            "details", "The product of width and height exceeds the maximum allowable buffer size (Integer.MAX_VALUE).")
+                            "error", "Service busy.",
+                            "details", "The request was interrupted while waiting for processing capacity.")
                     ).build();
 
         } catch (Exception e) {
@@ -72,4 +113,84 @@ public class ImageResource {
                     ).build();
         }
     }
-}
\ No newline at end of file
+
+    private Response bufferOverflow(DimensionDTO dimensions) {
+        // This catches the Integer Overflow detected by Math.multiplyExact in the service layer.
+        LOG.warnf("Security Alert: Integer overflow detected during size calculation for dimensions W:%d x H:%d",
+                dimensions.getWidth(), dimensions.getHeight());
+
+        // Return 400 Bad Request, indicating the input is mathematically impossible to process.
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of(
+                        "error", "Input dimensions are too large.",
+                        "details", "The product of width and height exceeds the maximum allowable buffer size (Integer.MAX_VALUE).")
+                ).build();
+    }
+
+    /**
+     * Processes arbitrarily large dimensions tile by tile and streams the result as a chunked response.
+     * Peak memory is bounded by the tile size and parallelism, not by width * height. Each request
+     * holds a streaming slot until its response has ended, so the number of concurrent streams
+     * never exceeds what the shared tile pool can serve.
+     *
+     * @param dimensions     The validated input DTO.
+     * @param routingContext The current HTTP exchange, used to release the streaming slot when it ends.
+     * @return A streaming octet response, or a JSON error if the surface size is out of range or
+     *         no streaming slot became free in time.
+     */
+    @POST
+    @Path("/stream")
+    @RunOnVirtualThread
+    @Produces({MediaType.APPLICATION_OCTET_STREAM, MediaType.APPLICATION_JSON})
+    public Response streamDimensions(@Valid DimensionDTO dimensions, @Context RoutingContext routingContext) {
+        long surfaceSize;
+        try {
+            // Validate the size up front so errors are reported before the response is committed.
+            surfaceSize = tiledProcessingService.calculateSurfaceSize(dimensions);
+        } catch (ArithmeticException e) {
+            LOG.warnf("Rejected streaming request for dimensions W:%d x H:%d: surface size out of range",
+                    dimensions.getWidth(), dimensions.getHeight());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(Map.of(
+                            "error", "Input dimensions are too large.",
+                            "details", "The product of width and height exceeds the maximum streamable surface size.")
+                    ).build();
+        }
+
+        TiledProcessingService.StreamSlot slot;
+        try {
+            // Reserve the slot before the response is committed so a full server can still answer 503.
+            slot = tiledProcessingService.openStream();
+        } catch (TimeoutException e) {
+            LOG.warnf("Streaming capacity exhausted; rejecting dimensions W:%d x H:%d after queueing",
+                    dimensions.getWidth(), dimensions.getHeight());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(Map.of(
+                            "error", "Service busy.",
+                            "details", "Too many streaming requests are in progress. Please retry later.")
+                    ).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(Map.of(
+                            "error", "Service busy.",
+                            "details", "The request was interrupted while waiting for streaming capacity.")
+                    ).build();
+        }
+
+        // Also released when the response ends or the connection drops, in case the body is never written.
+        routingContext.addEndHandler(done -> slot.close());
+
+        StreamingOutput body = output -> {
+            try (TiledProcessingService.StreamSlot ignored = slot) {
+                tiledProcessingService.streamSurface(dimensions, output);
+            }
+        };
+        return Response.ok(body, MediaType.APPLICATION_OCTET_STREAM)
+                .header("X-Surface-Size-Bytes", surfaceSize)
+                .build();
+    }
+}
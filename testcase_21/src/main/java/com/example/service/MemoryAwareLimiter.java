@@ -0,0 +1,118 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limiter weighted by the number of bytes a request will allocate.
+ *
+ * Permits are counted in KiB against a fixed in-flight memory budget, so many small requests
+ * can run side by side while large ones wait for enough budget to free up. A single request
+ * larger than the whole budget can never be admitted; callers check {@link #fits(long)} first and
+ * reject it outright instead of queueing it.
+ */
+@ApplicationScoped
+public class MemoryAwareLimiter {
+
+    private static final long PERMIT_UNIT_BYTES = 1024L;
+
+    @ConfigProperty(name = "processing.limiter.max-in-flight-bytes", defaultValue = "268435456")
+    long maxInFlightBytes;
+
+    @ConfigProperty(name = "processing.limiter.queue-timeout-ms", defaultValue = "30000")
+    long queueTimeoutMillis;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private Semaphore budget;
+    private int budgetPermits;
+    private Timer queueTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        budgetPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, maxInFlightBytes / PERMIT_UNIT_BYTES));
+        // Non-fair on purpose: small requests may overtake a queued large one instead of piling up behind it.
+        budget = new Semaphore(budgetPermits, false);
+        queueTimer = Timer.builder("processing.limiter.queue.time")
+                .description("Time spent waiting for in-flight memory budget")
+                .register(registry);
+        rejected = Counter.builder("processing.limiter.rejected")
+                .description("Requests that timed out waiting for in-flight memory budget")
+                .register(registry);
+        Gauge.builder("processing.limiter.inflight.bytes", inFlightBytes, AtomicLong::get)
+                .description("Bytes currently reserved by running requests")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * True if a request of the given size can ever be admitted, i.e. it is not larger than the whole budget.
+     */
+    public boolean fits(long requestedBytes) {
+        return requestedBytes <= (long) budgetPermits * PERMIT_UNIT_BYTES;
+    }
+
+    /**
+     * Blocks until enough budget is available for the requested bytes.
+     *
+     * @param requestedBytes Bytes the caller is about to allocate.
+     * @return A permit that must be closed once the allocation is released.
+     * @throws IllegalArgumentException if the request is larger than the whole budget (see {@link #fits(long)}).
+     * @throws TimeoutException         if the budget did not free up within the configured queue timeout.
+     * @throws InterruptedException     if the waiting thread is interrupted.
+     */
+    public Permit acquire(long requestedBytes) throws TimeoutException, InterruptedException {
+        if (!fits(requestedBytes)) {
+            throw new IllegalArgumentException("Request of " + requestedBytes + " bytes exceeds the processing budget.");
+        }
+        long units = (Math.max(requestedBytes, 1L) + PERMIT_UNIT_BYTES - 1) / PERMIT_UNIT_BYTES;
+        int permits = (int) units;
+
+        long start = System.nanoTime();
+        boolean acquired = budget.tryAcquire(permits, queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        queueTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejected.increment();
+            throw new TimeoutException("Timed out waiting for " + requestedBytes + " bytes of processing budget.");
+        }
+        inFlightBytes.addAndGet(requestedBytes);
+        return new Permit(permits, requestedBytes);
+    }
+
+    /**
+     * Reservation of in-flight memory budget. Closing it more than once has no effect.
+     */
+    public final class Permit implements AutoCloseable {
+        private final int permits;
+        private final long bytes;
+        private boolean released;
+
+        private Permit(int permits, long bytes) {
+            this.permits = permits;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                inFlightBytes.addAndGet(-bytes);
+                budget.release(permits);
+            }
+        }
+    }
+}
@@ -10,36 +10,42 @@ import java.util.Arrays;
 @ApplicationScoped
 public class ProcessingService {
 
+    // Largest array length the JVM reliably allows.
+    public static final long MAX_BUFFER_BYTES = Integer.MAX_VALUE - 8;
+
     /**
-     * Calculates the required buffer size (width * height) and allocates a byte buffer.
+     * Calculates the required buffer size (width * height) in 64-bit arithmetic.
      *
      * SECURITY DEFENSE: Prevents Integer Overflow.
-     * We use Math.multiplyExact(int, int). This method performs the multiplication
-     * and throws an ArithmeticException if the result overflows the capacity of a standard Java int (2^31 - 1).
-     * This ensures the calculated size is always mathematically correct and non-negative,
-     * preventing the creation of an undersized buffer (Heap-based Buffer Overflow).
+     * The product is computed with Math.multiplyExact on longs, so it can never wrap around, and is
+     * then checked against the largest allocatable array before anything is allocated.
+     *
+     * @param dimensions DTO containing user-supplied width and height.
+     * @return The number of bytes the buffer needs.
+     * @throws ArithmeticException if the product of width and height exceeds the maximum buffer size.
+     */
+    public long calculateBufferSize(DimensionDTO dimensions) throws ArithmeticException {
+        long size = Math.multiplyExact((long) dimensions.getWidth(), (long) dimensions.getHeight());
+        if (size > MAX_BUFFER_BYTES) {
+            throw new ArithmeticException("Buffer size exceeds the maximum allocatable array length.");
+        }
+        return size;
+    }
+
+    /**
+     * Calculates the required buffer size and allocates a byte buffer of that size.
      *
      * @param dimensions DTO containing user-supplied width and height.
      * @return A dummy allocated byte array (representing the required buffer).
-     * @throws ArithmeticException if the product of width and height exceeds Integer.MAX_VALUE.
+     * @throws ArithmeticException if the product of width and height exceeds the maximum buffer size.
      */
     public byte[] calculateAndAllocateBuffer(DimensionDTO dimensions) throws ArithmeticException {
-        int width = dimensions.getWidth();
-        int height = dimensions.getHeight();
-
-        // VULNERABILITY INJECTION: Removed Math.multiplyExact, allowing silent integer overflow (wraparound).
-        // If width * height > Integer.MAX_VALUE, the result will be a small or negative number.
-        int calculatedSize = width * height;
-
-        // Note: Since calculatedSize is guaranteed to be <= Integer.MAX_VALUE and >= 1 (due to DTO validation),
-        // we can safely proceed with allocation.
-
         // 2. Resource Allocation: Allocate the buffer using the validated size.
-        byte[] buffer = new byte[calculatedSize];
+        byte[] buffer = new byte[(int) calculateBufferSize(dimensions)];
 
         // Simulate buffer initialization (e.g., setting all bytes to 0)
         Arrays.fill(buffer, (byte) 0);
 
         return buffer;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package com.example.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounded pool of fixed-size tile buffers shared by all tiled processing requests.
+ * Buffers are allocated lazily up to the configured capacity and recycled afterwards,
+ * so the total tile memory held by the service never exceeds capacity * tileSize.
+ *
+ * A request takes its whole window of tiles in one step, so two requests can never each
+ * hold part of a window while waiting for the other's tiles.
+ */
+public class TileBufferPool {
+
+    private final int tileSize;
+    private final int capacity;
+    private final Deque<byte[]> free;
+    private int allocated;
+
+    public TileBufferPool(int tileSize, int capacity) {
+        if (tileSize < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Tile size and pool capacity must be positive.");
+        }
+        this.tileSize = tileSize;
+        this.capacity = capacity;
+        this.free = new ArrayDeque<>(capacity);
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns {@code count} tiles at once, allocating new ones while the pool has not reached
+     * capacity yet, otherwise blocking until enough tiles have been released. No tile is handed
+     * out until all of them are available.
+     */
+    public synchronized byte[][] acquire(int count) throws InterruptedException {
+        if (count < 1 || count > capacity) {
+            throw new IllegalArgumentException("Tile count must be between 1 and the pool capacity.");
+        }
+        while (free.size() + (capacity - allocated) < count) {
+            wait();
+        }
+        byte[][] tiles = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            byte[] tile = free.poll();
+            if (tile == null) {
+                allocated++;
+                tile = new byte[tileSize];
+            }
+            tiles[i] = tile;
+        }
+        return tiles;
+    }
+
+    /**
+     * Hands a tile back to the pool. Tiles that did not come from this pool are ignored.
+     */
+    public synchronized void release(byte[] tile) {
+        if (tile != null && tile.length == tileSize && free.size() < allocated) {
+            free.push(tile);
+            notifyAll();
+        }
+    }
+}
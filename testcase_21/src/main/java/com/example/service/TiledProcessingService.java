@@ -0,0 +1,188 @@
+package com.example.service;
+
+import com.example.dto.DimensionDTO;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tile-based processing engine for surfaces that are too large for a single contiguous buffer.
+ *
+ * The logical width * height surface is split into fixed-size tiles taken from a shared
+ * {@link TileBufferPool}. Up to {@code parallelism} tiles are processed concurrently on a
+ * dedicated fork-join pool and written to the output in order, so peak memory per request is
+ * bounded by tileSize * parallelism rather than by the surface size.
+ *
+ * Concurrent streams are capped at poolCapacity / parallelism, so every admitted stream can
+ * always get a full window of tiles and the shared pool is never oversubscribed.
+ */
+@ApplicationScoped
+public class TiledProcessingService {
+
+    @ConfigProperty(name = "processing.tile.size-bytes", defaultValue = "1048576")
+    int tileSize;
+
+    @ConfigProperty(name = "processing.tile.parallelism", defaultValue = "4")
+    int parallelism;
+
+    @ConfigProperty(name = "processing.tile.pool-capacity", defaultValue = "64")
+    int poolCapacity;
+
+    @ConfigProperty(name = "processing.stream.max-bytes", defaultValue = "17179869184")
+    long maxSurfaceBytes;
+
+    @ConfigProperty(name = "processing.stream.queue-timeout-ms", defaultValue = "30000")
+    long streamQueueTimeoutMillis;
+
+    private ForkJoinPool workers;
+    private TileBufferPool tilePool;
+    private Semaphore streamSlots;
+
+    @PostConstruct
+    void init() {
+        workers = new ForkJoinPool(parallelism);
+        tilePool = new TileBufferPool(tileSize, Math.max(poolCapacity, parallelism));
+        // Fair so a queued stream is admitted in arrival order once a slot frees up.
+        streamSlots = new Semaphore(tilePool.getCapacity() / parallelism, true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Calculates the logical surface size (width * height) in 64-bit arithmetic.
+     *
+     * @throws ArithmeticException if the product overflows a long or exceeds the configured streaming limit.
+     */
+    public long calculateSurfaceSize(DimensionDTO dimensions) throws ArithmeticException {
+        long size = Math.multiplyExact((long) dimensions.getWidth(), (long) dimensions.getHeight());
+        if (size > maxSurfaceBytes) {
+            throw new ArithmeticException("Surface size exceeds the configured streaming limit.");
+        }
+        return size;
+    }
+
+    /**
+     * Reserves one of the concurrent stream slots, waiting up to the configured queue timeout.
+     * The slot must be closed once the stream has been written.
+     *
+     * @throws TimeoutException     if no slot freed up in time.
+     * @throws InterruptedException if the waiting thread is interrupted.
+     */
+    public StreamSlot openStream() throws TimeoutException, InterruptedException {
+        if (!streamSlots.tryAcquire(streamQueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Timed out waiting for a free streaming slot.");
+        }
+        return new StreamSlot();
+    }
+
+    /**
+     * Processes the surface tile by tile and writes the result to the given stream in order.
+     * Callers should hold a {@link StreamSlot} from {@link #openStream()} while this runs.
+     *
+     * @param dimensions DTO containing user-supplied width and height.
+     * @param out        Destination for the processed surface.
+     * @throws ArithmeticException if the surface size is out of range.
+     * @throws IOException         if writing to the output fails or the request is interrupted.
+     */
+    public void streamSurface(DimensionDTO dimensions, OutputStream out) throws IOException {
+        long totalSize = calculateSurfaceSize(dimensions);
+        long tileCount = (totalSize + tileSize - 1) / tileSize;
+
+        for (long firstTile = 0; firstTile < tileCount; firstTile += parallelism) {
+            int window = (int) Math.min(parallelism, tileCount - firstTile);
+            byte[][] buffers;
+            try {
+                // Acquire on the request thread so fork-join workers never block on the pool.
+                buffers = tilePool.acquire(window);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Tiled processing was interrupted.");
+            }
+            List<ForkJoinTask<Tile>> tasks = new ArrayList<>(window);
+            try {
+                for (int i = 0; i < window; i++) {
+                    long offset = (firstTile + i) * tileSize;
+                    int length = (int) Math.min(tileSize, totalSize - offset);
+                    Tile tile = new Tile(buffers[i], length);
+                    tasks.add(workers.submit(() -> processTile(tile)));
+                }
+                for (int i = 0; i < window; i++) {
+                    Tile tile = tasks.get(i).join();
+                    out.write(tile.buffer, 0, tile.length);
+                    // Hand the tile back as soon as it is written rather than at the end of the window.
+                    tilePool.release(buffers[i]);
+                    buffers[i] = null;
+                }
+            } finally {
+                releaseRemaining(tasks, buffers);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Simulates per-tile initialization, mirroring the zero-fill done for contiguous buffers.
+     */
+    private Tile processTile(Tile tile) {
+        Arrays.fill(tile.buffer, 0, tile.length, (byte) 0);
+        return tile;
+    }
+
+    private void releaseRemaining(List<ForkJoinTask<Tile>> tasks, byte[][] buffers) {
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] == null) {
+                continue;
+            }
+            if (i < tasks.size()) {
+                // quietlyJoin waits for in-flight tiles so a buffer is never recycled while still being filled.
+                tasks.get(i).quietlyJoin();
+            }
+            tilePool.release(buffers[i]);
+        }
+    }
+
+    private static final class Tile {
+        final byte[] buffer;
+        final int length;
+
+        Tile(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Reservation of one concurrent stream. Closing it more than once, from any thread, has no effect.
+     */
+    public final class StreamSlot implements AutoCloseable {
+        // Closed from the writer thread and from the response end handler, whichever runs first.
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private StreamSlot() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                streamSlots.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.configservice.codec;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that fails once more than a fixed number of bytes has been read,
+ * so a decoder fed from a request body can never buffer more than that limit.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long count;
+
+    public BoundedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            advance(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void advance(long n) throws IOException {
+        count += n;
+        if (count > maxBytes) {
+            throw new PayloadTooLargeException(maxBytes);
+        }
+    }
+
+    /**
+     * Signals that the payload exceeded the configured byte limit.
+     */
+    public static class PayloadTooLargeException extends IOException {
+        public PayloadTooLargeException(long maxBytes) {
+            super("Payload exceeds the limit of " + maxBytes + " bytes.");
+        }
+    }
+}
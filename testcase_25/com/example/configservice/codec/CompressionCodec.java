@@ -0,0 +1,156 @@
+package com.example.configservice.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.function.IntFunction;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Compression helpers for configuration blobs, built on the JDK's zlib bindings.
+ *
+ * Besides gzip and plain deflate, payloads can be deflated against a preset dictionary
+ * ({@link #DICTIONARY_DEFLATE}). Small configs are mostly the same keys and values repeated across
+ * configIds, so a shared dictionary lets even a few hundred bytes compress well. The zlib header
+ * carries the dictionary's Adler-32 id, which the decoder uses to pick the matching dictionary.
+ */
+public final class CompressionCodec {
+
+    public static final String IDENTITY = "identity";
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    public static final String DICTIONARY_DEFLATE = "x-config-dict";
+
+    private CompressionCodec() {
+    }
+
+    public static boolean isSupported(String encoding) {
+        return IDENTITY.equals(encoding) || GZIP.equals(encoding)
+                || DEFLATE.equals(encoding) || DICTIONARY_DEFLATE.equals(encoding);
+    }
+
+    /**
+     * Compresses the data with the given encoding.
+     *
+     * @param dictionary Preset dictionary; only used for {@link #DICTIONARY_DEFLATE}.
+     */
+    public static byte[] compress(String encoding, byte[] data, byte[] dictionary) {
+        switch (encoding) {
+            case IDENTITY:
+                return data;
+            case GZIP:
+                return gzip(data);
+            case DEFLATE:
+                return deflate(data, Deflater.DEFAULT_COMPRESSION, null);
+            case DICTIONARY_DEFLATE:
+                return deflate(data, Deflater.DEFAULT_COMPRESSION, dictionary);
+            default:
+                throw new IllegalArgumentException("Unsupported content encoding: " + encoding);
+        }
+    }
+
+    /**
+     * Wraps the stream so it yields decompressed bytes.
+     *
+     * @param dictionaries Resolves a dictionary by Adler-32 id; only used for {@link #DICTIONARY_DEFLATE}.
+     */
+    public static InputStream decompressingStream(String encoding, InputStream in,
+                                                  IntFunction<byte[]> dictionaries) throws IOException {
+        switch (encoding) {
+            case IDENTITY:
+                return in;
+            case GZIP:
+                return new GZIPInputStream(in);
+            case DEFLATE:
+                return new InflaterInputStream(in);
+            case DICTIONARY_DEFLATE:
+                return new DictionaryInflaterInputStream(in, dictionaries);
+            default:
+                throw new IllegalArgumentException("Unsupported content encoding: " + encoding);
+        }
+    }
+
+    public static byte[] deflate(byte[] data, int level, byte[] dictionary) {
+        Deflater deflater = new Deflater(level);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates a deflate blob, failing if the output would exceed maxBytes.
+     */
+    public static byte[] inflate(byte[] data, long maxBytes) throws IOException {
+        try (InputStream in = new BoundedInputStream(new InflaterInputStream(new ByteArrayInputStream(data)), maxBytes)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            // In-memory streams never throw.
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * InflaterInputStream stops with EOF when zlib asks for a preset dictionary; this variant
+     * supplies the dictionary named in the header and carries on.
+     */
+    private static final class DictionaryInflaterInputStream extends InflaterInputStream {
+
+        private final IntFunction<byte[]> dictionaries;
+
+        DictionaryInflaterInputStream(InputStream in, IntFunction<byte[]> dictionaries) {
+            super(in, new Inflater());
+            this.dictionaries = dictionaries;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n == -1 && inf.needsDictionary()) {
+                byte[] dictionary = dictionaries.apply(inf.getAdler());
+                if (dictionary == null) {
+                    throw new ZipException("Unknown compression dictionary " + Integer.toHexString(inf.getAdler()) + ".");
+                }
+                inf.setDictionary(dictionary);
+                n = super.read(b, off, len);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                // The Inflater was supplied by us, so InflaterInputStream does not release it.
+                inf.end();
+            }
+        }
+    }
+}
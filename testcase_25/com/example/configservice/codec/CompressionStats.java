@@ -0,0 +1,49 @@
+package com.example.configservice.codec;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-configId compression counters: bytes before and after compression and CPU time spent.
+ */
+public class CompressionStats {
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public void record(String configId, long rawBytes, long compressedBytes, long nanos) {
+        Counters c = counters.computeIfAbsent(configId, id -> new Counters());
+        c.operations.increment();
+        c.rawBytes.add(rawBytes);
+        c.compressedBytes.add(compressedBytes);
+        c.nanos.add(nanos);
+    }
+
+    /**
+     * Returns a snapshot of the counters for the configId, or an empty map if nothing was recorded.
+     */
+    public Map<String, Object> snapshot(String configId) {
+        Counters c = counters.get(configId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (c == null) {
+            return result;
+        }
+        long raw = c.rawBytes.sum();
+        long compressed = c.compressedBytes.sum();
+        long operations = c.operations.sum();
+        result.put("operations", operations);
+        result.put("rawBytes", raw);
+        result.put("compressedBytes", compressed);
+        result.put("ratio", compressed == 0 ? 0.0 : (double) raw / compressed);
+        result.put("avgCpuMicros", operations == 0 ? 0.0 : c.nanos.sum() / 1000.0 / operations);
+        return result;
+    }
+
+    private static final class Counters {
+        final LongAdder operations = new LongAdder();
+        final LongAdder rawBytes = new LongAdder();
+        final LongAdder compressedBytes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.configservice.codec;
+
+import com.example.configservice.model.AppConfiguration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, schema-based binary encoding for {@link AppConfiguration}.
+ *
+ * Layout (all integers are unsigned LEB128 varints unless noted):
+ * <pre>
+ *   magic 'C' 'F' | format version | config version | configId | owner | settings map
+ * </pre>
+ * Strings are a varint byte length followed by UTF-8 bytes. Settings values carry a one-byte
+ * type tag; signed numbers are zigzag varints, doubles are 8 big-endian bytes, and lists and
+ * maps are a varint count followed by their elements. Only the value types Jackson produces
+ * for untyped JSON are supported, so anything else is rejected instead of being reflected on.
+ *
+ * The decoder never trusts declared sizes: string lengths, collection sizes and nesting depth
+ * are checked against configurable limits before anything is allocated.
+ */
+public class ConfigBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/vnd.example.config+binary";
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC_0 = 'C';
+    private static final int MAGIC_1 = 'F';
+
+    static final int TAG_NULL = 0;
+    static final int TAG_FALSE = 1;
+    static final int TAG_TRUE = 2;
+    static final int TAG_INT = 3;
+    static final int TAG_LONG = 4;
+    static final int TAG_DOUBLE = 5;
+    static final int TAG_STRING = 6;
+    static final int TAG_LIST = 7;
+    static final int TAG_MAP = 8;
+    static final int TAG_BIG_INTEGER = 9;
+    static final int TAG_BIG_DECIMAL = 10;
+
+    private final int maxStringBytes;
+    private final int maxCollectionSize;
+    private final int maxDepth;
+
+    public ConfigBinaryCodec() {
+        this(64 * 1024, 100_000, 32);
+    }
+
+    public ConfigBinaryCodec(int maxStringBytes, int maxCollectionSize, int maxDepth) {
+        this.maxStringBytes = maxStringBytes;
+        this.maxCollectionSize = maxCollectionSize;
+        this.maxDepth = maxDepth;
+    }
+
+    // --- Encoding ---
+
+    public byte[] encode(AppConfiguration config) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try {
+            encode(config, out);
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws; keep the signature free of checked exceptions.
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the configuration to the stream. The stream is flushed but not closed.
+     */
+    public void encode(AppConfiguration config, OutputStream target) throws IOException {
+        OutputStream out = target instanceof BufferedOutputStream || target instanceof ByteArrayOutputStream
+                ? target : new BufferedOutputStream(target);
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        writeVarLong(out, FORMAT_VERSION);
+        writeVarLong(out, config.getVersion() & 0xFFFFFFFFL);
+        writeString(out, config.getConfigId());
+        writeString(out, config.getOwner());
+        Map<String, Object> settings = config.getSettings();
+        if (settings == null) {
+            out.write(TAG_NULL);
+        } else {
+            writeValue(out, settings, 0);
+        }
+        out.flush();
+    }
+
+    private void writeValue(OutputStream out, Object value, int depth) throws IOException {
+        if (depth > maxDepth) {
+            throw new IllegalArgumentException("Settings nesting exceeds " + maxDepth + " levels.");
+        }
+        if (value == null) {
+            out.write(TAG_NULL);
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.write(TAG_INT);
+            writeVarLong(out, zigZag(((Number) value).intValue()));
+        } else if (value instanceof Long) {
+            out.write(TAG_LONG);
+            writeVarLong(out, zigZag((Long) value));
+        } else if (value instanceof Double || value instanceof Float) {
+            out.write(TAG_DOUBLE);
+            writeFixedLong(out, Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof String) {
+            out.write(TAG_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof BigInteger) {
+            out.write(TAG_BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            out.write(TAG_BIG_DECIMAL);
+            writeVarLong(out, zigZag(decimal.scale()));
+            writeBytes(out, decimal.unscaledValue().toByteArray());
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.write(TAG_LIST);
+            writeVarLong(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element, depth + 1);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.write(TAG_MAP);
+            writeVarLong(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue(), depth + 1);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported settings value type: " + value.getClass().getName());
+        }
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            // Length 0 is reserved for null; empty strings are encoded as length 1 with no payload.
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static void writeBytes(OutputStream out, byte[] bytes) throws IOException {
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeFixedLong(OutputStream out, long value) throws IOException {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // --- Decoding ---
+
+    /**
+     * Reads one configuration from the stream.
+     *
+     * @throws IOException if the stream ends early, is not in this format, or violates a size limit.
+     */
+    public AppConfiguration decode(InputStream source) throws IOException {
+        InputStream in = source instanceof BufferedInputStream ? source : new BufferedInputStream(source);
+        if (readByte(in) != MAGIC_0 || readByte(in) != MAGIC_1) {
+            throw new StreamCorruptedException("Not a binary configuration payload.");
+        }
+        long formatVersion = readVarLong(in);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new StreamCorruptedException("Unsupported binary configuration format version " + formatVersion + ".");
+        }
+        long version = readVarLong(in);
+        if (version > 0xFFFFFFFFL) {
+            throw new StreamCorruptedException("Configuration version out of range.");
+        }
+        String configId = readString(in);
+        String owner = readString(in);
+        Object settings = readValue(in, 0);
+        if (settings != null && !(settings instanceof Map)) {
+            throw new StreamCorruptedException("Settings must be encoded as a map.");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> settingsMap = (Map<String, Object>) settings;
+        return new AppConfiguration(configId, (int) version, owner, settingsMap);
+    }
+
+    private Object readValue(InputStream in, int depth) throws IOException {
+        if (depth > maxDepth) {
+            throw new StreamCorruptedException("Settings nesting exceeds " + maxDepth + " levels.");
+        }
+        int tag = readByte(in);
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_INT:
+                return (int) unZigZag(readVarLong(in));
+            case TAG_LONG:
+                return unZigZag(readVarLong(in));
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(readFixedLong(in));
+            case TAG_STRING:
+                return readString(in);
+            case TAG_BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case TAG_BIG_DECIMAL: {
+                int scale = (int) unZigZag(readVarLong(in));
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+            case TAG_LIST: {
+                int size = readSize(in);
+                List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, depth + 1));
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                int size = readSize(in);
+                Map<String, Object> map = new LinkedHashMap<>(Math.min(size, 1024) * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    if (key == null) {
+                        throw new StreamCorruptedException("Settings keys cannot be null.");
+                    }
+                    map.put(key, readValue(in, depth + 1));
+                }
+                return map;
+            }
+            default:
+                throw new StreamCorruptedException("Unknown settings value tag " + tag + ".");
+        }
+    }
+
+    private String readString(InputStream in) throws IOException {
+        long encodedLength = readVarLong(in);
+        if (encodedLength == 0) {
+            return null;
+        }
+        long length = encodedLength - 1;
+        if (length > maxStringBytes) {
+            throw new StreamCorruptedException("String exceeds " + maxStringBytes + " bytes.");
+        }
+        return new String(readFully(in, (int) length), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(InputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length > maxStringBytes) {
+            throw new StreamCorruptedException("Numeric payload exceeds " + maxStringBytes + " bytes.");
+        }
+        return readFully(in, (int) length);
+    }
+
+    private int readSize(InputStream in) throws IOException {
+        long size = readVarLong(in);
+        if (size > maxCollectionSize) {
+            throw new StreamCorruptedException("Collection exceeds " + maxCollectionSize + " elements.");
+        }
+        return (int) size;
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Unexpected end of binary configuration payload.");
+        }
+        return bytes;
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(in);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint.");
+    }
+
+    private static long readFixedLong(InputStream in) throws IOException {
+        long result = 0;
+        for (int i = 0; i < 8; i++) {
+            result = (result << 8) | readByte(in);
+        }
+        return result;
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Unexpected end of binary configuration payload.");
+        }
+        return b;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
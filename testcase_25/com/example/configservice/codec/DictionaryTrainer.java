@@ -0,0 +1,88 @@
+package com.example.configservice.codec;
+
+import com.example.configservice.model.AppConfiguration;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a preset deflate dictionary from sample configurations.
+ *
+ * Field names and settings keys are counted across the samples as they would appear in JSON
+ * ({@code "key":}), and tokens seen in more than one sample are packed into
+ * the dictionary in ascending frequency. Deflate references nearer data more cheaply, so the most
+ * common tokens go last. The result is capped at the 32 KiB deflate window.
+ *
+ * Values are deliberately left out: the dictionary is handed to any client, and settings
+ * values or owners of one configuration must not leak to consumers of another.
+ */
+public final class DictionaryTrainer {
+
+    public static final int MAX_DICTIONARY_BYTES = 32 * 1024;
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private DictionaryTrainer() {
+    }
+
+    public static byte[] train(Iterable<AppConfiguration> samples) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (AppConfiguration sample : samples) {
+            count(frequencies, "{\"configId\":");
+            count(frequencies, ",\"version\":");
+            count(frequencies, ",\"owner\":\"");
+            count(frequencies, ",\"settings\":{");
+            if (sample.getSettings() != null) {
+                collect(frequencies, sample.getSettings());
+            }
+        }
+
+        List<Map.Entry<String, Integer>> tokens = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            if (entry.getValue() > 1) {
+                tokens.add(entry);
+            }
+        }
+        // Most frequent first so the cap drops the rarest tokens, then reversed when packing.
+        tokens.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        List<byte[]> selected = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> token : tokens) {
+            byte[] bytes = token.getKey().getBytes(StandardCharsets.UTF_8);
+            if (size + bytes.length > MAX_DICTIONARY_BYTES) {
+                continue;
+            }
+            selected.add(bytes);
+            size += bytes.length;
+        }
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            dictionary.writeBytes(selected.get(i));
+        }
+        return dictionary.toByteArray();
+    }
+
+    private static void collect(Map<String, Integer> frequencies, Map<?, ?> map) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            count(frequencies, "\"" + entry.getKey() + "\":");
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                collect(frequencies, (Map<?, ?>) value);
+            } else if (value instanceof Boolean) {
+                count(frequencies, String.valueOf(value));
+            }
+        }
+    }
+
+    private static void count(Map<String, Integer> frequencies, String token) {
+        if (token.length() <= MAX_TOKEN_LENGTH) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.configservice.codec;
+
+import com.example.configservice.model.AppConfiguration;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an {@link AppConfiguration} from JSON with Jackson's streaming parser.
+ *
+ * The settings map is built token by token rather than through a buffered tree, and every
+ * string, nesting level and value count is checked as it is read, so a hostile payload is
+ * rejected as soon as it crosses a limit instead of after it has been materialized.
+ */
+public class StreamingConfigJsonReader {
+
+    private final JsonFactory jsonFactory;
+    private final int maxStringLength;
+    private final int maxValues;
+    private final int maxDepth;
+
+    public StreamingConfigJsonReader(JsonFactory jsonFactory, int maxStringLength, int maxValues, int maxDepth) {
+        this.jsonFactory = jsonFactory;
+        this.maxStringLength = maxStringLength;
+        this.maxValues = maxValues;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Parses one configuration object from the stream. Unknown top-level fields are rejected.
+     *
+     * @throws IOException if the JSON is malformed or violates a limit.
+     */
+    public AppConfiguration read(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Configuration must be a JSON object.");
+            }
+            AppConfiguration config = new AppConfiguration();
+            int[] budget = {maxValues};
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "configId":
+                        config.setConfigId(readString(parser, value));
+                        break;
+                    case "owner":
+                        config.setOwner(readString(parser, value));
+                        break;
+                    case "version":
+                        if (value != JsonToken.VALUE_NUMBER_INT) {
+                            throw new JsonParseException(parser, "Version must be an integer.");
+                        }
+                        config.setVersion(parser.getIntValue());
+                        break;
+                    case "settings":
+                        if (value == JsonToken.VALUE_NULL) {
+                            config.setSettings(null);
+                        } else if (value == JsonToken.START_OBJECT) {
+                            config.setSettings(readObject(parser, 1, budget));
+                        } else {
+                            throw new JsonParseException(parser, "Settings must be a JSON object.");
+                        }
+                        break;
+                    default:
+                        throw new JsonParseException(parser, "Unknown configuration field '" + field + "'.");
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after configuration object.");
+            }
+            return config;
+        }
+    }
+
+    private Map<String, Object> readObject(JsonParser parser, int depth, int[] budget) throws IOException {
+        checkDepth(parser, depth);
+        Map<String, Object> map = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            checkLength(parser, key);
+            map.put(key, readValue(parser, parser.nextToken(), depth, budget));
+        }
+        return map;
+    }
+
+    private List<Object> readArray(JsonParser parser, int depth, int[] budget) throws IOException {
+        checkDepth(parser, depth);
+        List<Object> list = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            list.add(readValue(parser, token, depth, budget));
+        }
+        return list;
+    }
+
+    private Object readValue(JsonParser parser, JsonToken token, int depth, int[] budget) throws IOException {
+        if (--budget[0] < 0) {
+            throw new JsonParseException(parser, "Settings exceed " + maxValues + " values.");
+        }
+        if (token == null) {
+            throw new JsonParseException(parser, "Unexpected end of configuration payload.");
+        }
+        switch (token) {
+            case START_OBJECT:
+                return readObject(parser, depth + 1, budget);
+            case START_ARRAY:
+                return readArray(parser, depth + 1, budget);
+            case VALUE_STRING:
+                return readString(parser, token);
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                checkLength(parser, parser.getText());
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new JsonParseException(parser, "Unexpected token " + token + " in settings.");
+        }
+    }
+
+    private String readString(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            throw new JsonParseException(parser, "Expected a string value.");
+        }
+        // getTextLength works on the parser buffer, so the limit is checked before a String is built.
+        if (parser.getTextLength() > maxStringLength) {
+            throw new JsonParseException(parser, "String exceeds " + maxStringLength + " characters.");
+        }
+        return parser.getText();
+    }
+
+    private void checkLength(JsonParser parser, String text) throws IOException {
+        if (text.length() > maxStringLength) {
+            throw new JsonParseException(parser, "Token exceeds " + maxStringLength + " characters.");
+        }
+    }
+
+    private void checkDepth(JsonParser parser, int depth) throws IOException {
+        if (depth > maxDepth) {
+            throw new JsonParseException(parser, "Settings nesting exceeds " + maxDepth + " levels.");
+        }
+    }
+}
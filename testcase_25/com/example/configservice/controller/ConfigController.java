@@ -1,15 +1,30 @@
 package com.example.configservice.controller;
 
+import com.example.configservice.codec.ConfigBinaryCodec;
 import com.example.configservice.model.AppConfiguration;
+import com.example.configservice.patch.JsonMergePatch;
+import com.example.configservice.codec.CompressionCodec;
+import com.example.configservice.service.ConfigCompressionService;
 import com.example.configservice.service.ConfigProcessorService;
+import com.example.configservice.service.ConfigWatchService;
+import com.example.configservice.store.VersionConflictException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/config")
@@ -17,9 +32,14 @@ public class ConfigController {
 
     private static final Logger logger = LoggerFactory.getLogger(ConfigController.class);
     private final ConfigProcessorService configProcessorService;
+    private final ConfigWatchService configWatchService;
+    private final ConfigCompressionService configCompressionService;
 
-    public ConfigController(ConfigProcessorService configProcessorService) {
+    public ConfigController(ConfigProcessorService configProcessorService, ConfigWatchService configWatchService,
+                            ConfigCompressionService configCompressionService) {
         this.configProcessorService = configProcessorService;
+        this.configWatchService = configWatchService;
+        this.configCompressionService = configCompressionService;
     }
 
     /**
@@ -52,9 +72,55 @@ public class ConfigController {
         }
     }
 
+    /**
+     * Endpoint for loading configuration data encoded in the compact binary format.
+     * Shares the /load path with the legacy endpoint and is selected by Content-Type.
+     * The body is decoded straight from the request stream without buffering it first.
+     *
+     * @param encodedData The request body in {@link ConfigBinaryCodec#MEDIA_TYPE} format.
+     * @return The decoded configuration object.
+     */
+    @PostMapping(value = "/load", consumes = ConfigBinaryCodec.MEDIA_TYPE)
+    public ResponseEntity<AppConfiguration> loadBinaryConfiguration(InputStream encodedData) {
+        logger.info("Received binary configuration data for processing.");
+        try {
+            AppConfiguration config = configProcessorService.processBinaryData(encodedData);
+            return ResponseEntity.ok(config);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Client provided invalid binary configuration data: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            logger.error("Internal server error during binary configuration loading.", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Endpoint for loading JSON configuration data. The body is parsed incrementally from the
+     * request stream, so memory per request is bounded by the configured limits, not the payload size.
+     *
+     * @param jsonData The request body as JSON.
+     * @return The parsed configuration object.
+     */
+    @PostMapping(value = "/load", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AppConfiguration> loadJsonConfiguration(InputStream jsonData) {
+        logger.info("Received JSON configuration data for processing.");
+        try {
+            AppConfiguration config = configProcessorService.processJsonData(jsonData);
+            return ResponseEntity.ok(config);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Client provided invalid JSON configuration data: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            logger.error("Internal server error during JSON configuration loading.", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Endpoint for saving configuration data (using standard Spring/Jackson JSON binding).
      * Demonstrates secure input handling using JSR 303 validation.
+     * The configuration is appended to the versioned config store; stale versions are rejected.
      *
      * @param config The validated configuration object.
      * @return A confirmation message.
@@ -64,14 +130,174 @@ public class ConfigController {
         logger.info("Attempting to save configuration for ID: {}", config.getConfigId());
 
         // 1. Input Validation: Handled by @Valid and JSR 303 annotations.
-        // 2. Secure Serialization: Convert the validated POJO to bytes (JSON).
+        // 2. Persistence: Append the validated POJO to the config store.
         try {
-            byte[] serialized = configProcessorService.serializeConfig(config);
-            logger.info("Configuration successfully serialized and saved ({} bytes).", serialized.length);
+            configProcessorService.saveConfig(config);
+            logger.info("Configuration {} version {} saved.", config.getConfigId(), config.getVersion());
             return ResponseEntity.ok("Configuration saved successfully.");
+        } catch (VersionConflictException e) {
+            logger.warn("Rejected stale configuration save: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Configuration version is not newer than the stored version.");
         } catch (RuntimeException e) {
-            logger.error("Error during configuration serialization.", e);
+            logger.error("Error while persisting configuration.", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to save configuration.");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint for delta updates using RFC 7386 JSON Merge Patch. Only the changed keys are
+     * sent and stored; the patch is rejected unless the stored version equals baseVersion.
+     *
+     * @param configId    The configuration ID.
+     * @param baseVersion The version the client computed the patch against.
+     * @param patch       The merge patch for {@code owner} and/or {@code settings}.
+     * @return A confirmation with the new version in the ETag header.
+     */
+    @PatchMapping(value = "/{configId}", consumes = JsonMergePatch.MEDIA_TYPE)
+    public ResponseEntity<String> patchConfiguration(@PathVariable String configId,
+                                                     @RequestParam int baseVersion,
+                                                     @RequestBody Map<String, Object> patch) {
+        logger.info("Attempting to patch configuration {} from version {}.", configId, baseVersion);
+        try {
+            AppConfiguration patched = configProcessorService.patchConfig(configId, baseVersion, patch);
+            return ResponseEntity.ok()
+                    .eTag(String.valueOf(patched.getVersion()))
+                    .body("Configuration patched to version " + patched.getVersion() + ".");
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Configuration not found.");
+        } catch (VersionConflictException e) {
+            logger.warn("Rejected configuration patch: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .eTag(String.valueOf(e.getCurrentVersion()))
+                    .body("Base version does not match the stored version.");
+        } catch (IllegalArgumentException e) {
+            logger.warn("Client provided an invalid configuration patch: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid configuration patch.");
+        } catch (RuntimeException e) {
+            logger.error("Error while patching configuration.", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to patch configuration.");
+        }
+    }
+
+    /**
+     * Endpoint for reading the current version of a configuration, served from memory.
+     * The JSON body is compressed when the client's Accept-Encoding allows it.
+     *
+     * @param configId       The configuration ID.
+     * @param acceptEncoding The client's Accept-Encoding header, if any.
+     * @return The latest stored configuration as JSON, or 404 if none exists.
+     */
+    @GetMapping("/{configId}")
+    public ResponseEntity<byte[]> getConfiguration(@PathVariable String configId,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Optional<AppConfiguration> config = configProcessorService.findCurrentConfig(configId);
+        if (config.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        byte[] body = configProcessorService.serializeConfig(config.get());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        Optional<String> encoding = configCompressionService.shouldCompress(body.length)
+                ? configCompressionService.negotiate(acceptEncoding) : Optional.empty();
+        if (encoding.isPresent()) {
+            body = configCompressionService.encodeResponseBody(configId, encoding.get(), body);
+            response.header(HttpHeaders.CONTENT_ENCODING, encoding.get());
+            if (CompressionCodec.DICTIONARY_DEFLATE.equals(encoding.get())) {
+                response.header("X-Config-Dictionary-Id", Integer.toHexString(configCompressionService.getCurrentDictionaryId()));
+            }
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Endpoint for storage and transfer compression statistics of a configuration.
+     *
+     * @param configId The configuration ID.
+     * @return Bytes before and after compression, ratio and average CPU time per operation.
+     */
+    @GetMapping("/{configId}/compression")
+    public ResponseEntity<Map<String, Object>> getCompressionStats(@PathVariable String configId) {
+        return ResponseEntity.ok(configCompressionService.statsFor(configId));
+    }
+
+    /**
+     * Endpoint for downloading the current shared compression dictionary, used by clients
+     * that send or accept the {@value CompressionCodec#DICTIONARY_DEFLATE} encoding.
+     *
+     * @return The raw dictionary bytes with their id in X-Config-Dictionary-Id.
+     */
+    @GetMapping(value = "/compression/dictionary", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getCompressionDictionary() {
+        return ResponseEntity.ok()
+                .header("X-Config-Dictionary-Id", Integer.toHexString(configCompressionService.getCurrentDictionaryId()))
+                .body(configCompressionService.getCurrentDictionary());
+    }
+
+    /**
+     * Endpoint for retraining the shared compression dictionary from the stored configurations.
+     *
+     * @return The id of the current dictionary.
+     */
+    @PostMapping("/compression/dictionary")
+    public ResponseEntity<String> trainCompressionDictionary() {
+        int id = configCompressionService.trainDictionary();
+        return ResponseEntity.ok(Integer.toHexString(id));
+    }
+
+    /**
+     * Long-poll endpoint for configuration changes. The request is parked without holding a
+     * servlet thread until a watched configId has a newer version or the timeout elapses.
+     *
+     * @param lastSeen  Map of configId to the last version the client has seen.
+     * @param timeoutMs Maximum time to wait, capped server-side.
+     * @return The newer configurations, 304 on timeout, or 400 for an invalid watch set.
+     */
+    @PostMapping(value = "/watch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<ResponseEntity<List<AppConfiguration>>> watchConfigurations(
+            @RequestBody Map<String, Integer> lastSeen,
+            @RequestParam(defaultValue = "30000") long timeoutMs) {
+        try {
+            return configWatchService.poll(lastSeen, timeoutMs);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Client provided an invalid watch request: {}", e.getMessage());
+            DeferredResult<ResponseEntity<List<AppConfiguration>>> rejected = new DeferredResult<>();
+            rejected.setResult(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+            return rejected;
+        }
+    }
+
+    /**
+     * Server-Sent-Events stream of configuration changes.
+     *
+     * @param watch Repeated {@code configId:lastSeenVersion} entries; the version may be omitted.
+     * @return An event stream emitting one "config" event per new version.
+     */
+    @GetMapping(value = "/watch/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamConfigurations(@RequestParam List<String> watch) {
+        try {
+            return ResponseEntity.ok(configWatchService.subscribe(parseWatchParams(watch)));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Client provided an invalid watch stream request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    private static Map<String, Integer> parseWatchParams(List<String> watch) {
+        Map<String, Integer> lastSeen = new HashMap<>();
+        for (String entry : watch) {
+            int separator = entry.lastIndexOf(':');
+            try {
+                if (separator < 0) {
+                    lastSeen.put(entry, 0);
+                } else {
+                    lastSeen.put(entry.substring(0, separator), Integer.parseInt(entry.substring(separator + 1)));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid version in watch parameter.", e);
+            }
+        }
+        return lastSeen;
+    }
+}
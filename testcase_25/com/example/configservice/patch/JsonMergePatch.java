@@ -0,0 +1,50 @@
+package com.example.configservice.patch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RFC 7386 JSON Merge Patch over the untyped values Jackson produces (maps, lists, scalars).
+ *
+ * Patching never mutates the target: only the maps along the patched paths are copied, and
+ * untouched subtrees are shared with the original, which is safe because stored configurations
+ * are treated as read-only.
+ */
+public final class JsonMergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private JsonMergePatch() {
+    }
+
+    /**
+     * Applies the patch to the target and returns the result.
+     * A null member in a patch object removes the corresponding member from the target.
+     */
+    public static Object apply(Object target, Object patch) {
+        if (!(patch instanceof Map)) {
+            return patch;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (target instanceof Map) {
+            ((Map<?, ?>) target).forEach((key, value) -> result.put(String.valueOf(key), value));
+        }
+        for (Map.Entry<?, ?> member : ((Map<?, ?>) patch).entrySet()) {
+            String key = String.valueOf(member.getKey());
+            if (member.getValue() == null) {
+                result.remove(key);
+            } else {
+                result.put(key, apply(result.get(key), member.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies a settings patch, returning a new settings map.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> applyToSettings(Map<String, Object> settings, Map<String, Object> patch) {
+        return (Map<String, Object>) apply(settings, patch);
+    }
+}
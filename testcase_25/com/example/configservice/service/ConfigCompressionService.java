@@ -0,0 +1,178 @@
+package com.example.configservice.service;
+
+import com.example.configservice.codec.BoundedInputStream;
+import com.example.configservice.codec.CompressionCodec;
+import com.example.configservice.codec.CompressionStats;
+import com.example.configservice.codec.DictionaryTrainer;
+import com.example.configservice.store.ConfigStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.Adler32;
+
+/**
+ * Content-Encoding support for configuration payloads.
+ *
+ * Decompresses request bodies (bounded by the configured payload limit, so a small compressed
+ * body cannot expand without limit), negotiates response encodings from Accept-Encoding, and maintains
+ * a shared deflate dictionary trained from stored configurations. The last few dictionaries
+ * stay resolvable so clients holding an older one keep working after a retrain.
+ * Compression ratio and CPU cost are tracked per configId for both storage and transfer.
+ */
+@Service
+public class ConfigCompressionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigCompressionService.class);
+    private static final int RETAINED_DICTIONARIES = 4;
+    // Preference order when the client accepts several encodings.
+    private static final String[] PREFERRED = {
+            CompressionCodec.DICTIONARY_DEFLATE, CompressionCodec.GZIP, CompressionCodec.DEFLATE
+    };
+
+    private final ConfigStore configStore;
+    private final long maxPayloadBytes;
+    private final int dictionarySamples;
+    private final int minResponseBytes;
+    private final CompressionStats transferStats = new CompressionStats();
+
+    private volatile Map<Integer, byte[]> dictionaries = Map.of();
+    private volatile int currentDictionaryId;
+
+    public ConfigCompressionService(ConfigStore configStore,
+                                    @Value("${config.load.max-bytes:8388608}") long maxPayloadBytes,
+                                    @Value("${config.compression.dictionary-samples:1000}") int dictionarySamples,
+                                    @Value("${config.compression.min-response-bytes:256}") int minResponseBytes) {
+        this.configStore = configStore;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.dictionarySamples = dictionarySamples;
+        this.minResponseBytes = minResponseBytes;
+    }
+
+    @PostConstruct
+    public void init() {
+        trainDictionary();
+    }
+
+    /**
+     * Retrains the shared dictionary from the currently stored configurations.
+     *
+     * @return The Adler-32 id of the new dictionary, or 0 if there was nothing to train on.
+     */
+    public synchronized int trainDictionary() {
+        byte[] dictionary = DictionaryTrainer.train(configStore.sampleLatest(dictionarySamples));
+        if (dictionary.length == 0) {
+            return currentDictionaryId;
+        }
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        int id = (int) adler.getValue();
+
+        Map<Integer, byte[]> retained = new LinkedHashMap<>(dictionaries);
+        retained.remove(id);
+        retained.put(id, dictionary);
+        while (retained.size() > RETAINED_DICTIONARIES) {
+            retained.remove(retained.keySet().iterator().next());
+        }
+        dictionaries = retained;
+        currentDictionaryId = id;
+        logger.info("Trained compression dictionary {} ({} bytes).", Integer.toHexString(id), dictionary.length);
+        return id;
+    }
+
+    public int getCurrentDictionaryId() {
+        return currentDictionaryId;
+    }
+
+    public byte[] getCurrentDictionary() {
+        byte[] dictionary = dictionaries.get(currentDictionaryId);
+        return dictionary == null ? new byte[0] : dictionary.clone();
+    }
+
+    /**
+     * Wraps a request body so it is read decompressed and capped at the payload limit.
+     *
+     * @throws IllegalArgumentException if the encoding is not supported.
+     */
+    public InputStream decodeRequestBody(String contentEncoding, InputStream body) throws IOException {
+        String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        if (!CompressionCodec.isSupported(encoding)) {
+            throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+        }
+        return new BoundedInputStream(
+                CompressionCodec.decompressingStream(encoding, body, dictionaries::get), maxPayloadBytes);
+    }
+
+    /**
+     * Picks the preferred encoding the client accepts, if any.
+     */
+    public Optional<String> negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return Optional.empty();
+        }
+        Map<String, Boolean> accepted = new LinkedHashMap<>();
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String name = params[0].trim().toLowerCase(Locale.ROOT);
+            boolean acceptable = true;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        acceptable = Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        acceptable = false;
+                    }
+                }
+            }
+            accepted.put(name, acceptable);
+        }
+        for (String encoding : PREFERRED) {
+            if (CompressionCodec.DICTIONARY_DEFLATE.equals(encoding) && currentDictionaryId == 0) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(accepted.get(encoding))) {
+                return Optional.of(encoding);
+            }
+        }
+        if (Boolean.TRUE.equals(accepted.get("*")) && !accepted.containsKey(CompressionCodec.GZIP)) {
+            return Optional.of(CompressionCodec.GZIP);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns true if a response of this size is worth compressing.
+     */
+    public boolean shouldCompress(int length) {
+        return length >= minResponseBytes;
+    }
+
+    /**
+     * Compresses a response body for the configId and records ratio and CPU time.
+     */
+    public byte[] encodeResponseBody(String configId, String encoding, byte[] body) {
+        long start = System.nanoTime();
+        byte[] compressed = CompressionCodec.compress(encoding, body, dictionaries.get(currentDictionaryId));
+        transferStats.record(configId, body.length, compressed.length, System.nanoTime() - start);
+        return compressed;
+    }
+
+    /**
+     * Returns storage and transfer compression statistics for the configId.
+     */
+    public Map<String, Object> statsFor(String configId) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("storage", configStore.getCompressionStats().snapshot(configId));
+        stats.put("transfer", transferStats.snapshot(configId));
+        return stats;
+    }
+}
@@ -1,14 +1,28 @@
 package com.example.configservice.service;
 
+import com.example.configservice.codec.BoundedInputStream;
+import com.example.configservice.codec.ConfigBinaryCodec;
+import com.example.configservice.codec.StreamingConfigJsonReader;
 import com.example.configservice.model.AppConfiguration;
+import com.example.configservice.patch.JsonMergePatch;
+import com.example.configservice.store.ConfigStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
 import java.io.ObjectInputStream;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class ConfigProcessorService {
@@ -16,6 +30,25 @@ public class ConfigProcessorService {
     private static final Logger logger = LoggerFactory.getLogger(ConfigProcessorService.class);
     // Use a thread-safe ObjectMapper instance
     private final ObjectMapper objectMapper = new ObjectMapper();
+    // Stateless and thread-safe; decoding limits guard against oversized declared lengths.
+    private final ConfigBinaryCodec binaryCodec = new ConfigBinaryCodec();
+    private final ConfigStore configStore;
+    private final ConfigWatchService configWatchService;
+    private final Validator validator;
+    private final StreamingConfigJsonReader jsonReader;
+    private final long maxPayloadBytes;
+
+    public ConfigProcessorService(ConfigStore configStore, ConfigWatchService configWatchService, Validator validator,
+                                  @Value("${config.load.max-bytes:8388608}") long maxPayloadBytes,
+                                  @Value("${config.load.max-string-length:65536}") int maxStringLength,
+                                  @Value("${config.load.max-values:100000}") int maxValues,
+                                  @Value("${config.load.max-depth:32}") int maxDepth) {
+        this.configStore = configStore;
+        this.configWatchService = configWatchService;
+        this.validator = validator;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.jsonReader = new StreamingConfigJsonReader(objectMapper.getFactory(), maxStringLength, maxValues, maxDepth);
+    }
 
     /**
      * VULNERABLE IMPLEMENTATION: Converts a byte array (expected to be a serialized Java object) into an AppConfiguration object.
@@ -74,4 +107,128 @@ public class ConfigProcessorService {
             throw new RuntimeException("Serialization failed due to internal error.", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Decodes a configuration in the compact binary format ({@link ConfigBinaryCodec#MEDIA_TYPE})
+     * directly from the request stream. Only the fixed AppConfiguration schema is read, so no classes
+     * are resolved from the payload, and reading stops once the configured byte limit is exceeded.
+     *
+     * @param data The request body in the binary configuration format.
+     * @return The decoded AppConfiguration object.
+     * @throws IllegalArgumentException if the data is malformed, too large or fails validation.
+     */
+    public AppConfiguration processBinaryData(InputStream data) {
+        try {
+            AppConfiguration config = binaryCodec.decode(new BoundedInputStream(data, maxPayloadBytes));
+            validate(config);
+            return config;
+        } catch (IOException e) {
+            logger.error("Failed to decode binary configuration data: {}", e.getMessage());
+            throw new IllegalArgumentException("Invalid configuration data format provided. Must be a valid binary configuration.", e);
+        }
+    }
+
+    /**
+     * Parses a JSON configuration from the request stream with Jackson's streaming parser,
+     * building the settings map incrementally under the configured size and depth limits.
+     *
+     * @param data The request body as JSON.
+     * @return The parsed AppConfiguration object.
+     * @throws IllegalArgumentException if the data is malformed, too large or fails validation.
+     */
+    public AppConfiguration processJsonData(InputStream data) {
+        try {
+            AppConfiguration config = jsonReader.read(new BoundedInputStream(data, maxPayloadBytes));
+            validate(config);
+            return config;
+        } catch (IOException e) {
+            logger.error("Failed to parse JSON configuration data: {}", e.getMessage());
+            throw new IllegalArgumentException("Invalid configuration data format provided. Must be a valid JSON configuration.", e);
+        }
+    }
+
+    /**
+     * Converts an AppConfiguration object into the compact binary format.
+     *
+     * @param config The configuration object.
+     * @return The encoded byte array.
+     */
+    public byte[] serializeConfigBinary(AppConfiguration config) {
+        try {
+            return binaryCodec.encode(config);
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to encode configuration object: {}", e.getMessage());
+            throw new RuntimeException("Serialization failed due to unsupported settings value.", e);
+        }
+    }
+
+    /**
+     * Persists a new version of the configuration in the append-only config store
+     * and notifies watchers of its configId.
+     *
+     * @param config The validated configuration object.
+     * @return The stored configuration.
+     * @throws com.example.configservice.store.VersionConflictException if the version is not newer than the stored one.
+     */
+    public AppConfiguration saveConfig(AppConfiguration config) {
+        AppConfiguration stored = configStore.save(config);
+        configWatchService.publish(stored);
+        return stored;
+    }
+
+    /**
+     * Returns the current version of a configuration from the in-memory index.
+     *
+     * @param configId The configuration ID.
+     * @return The latest stored configuration, if any.
+     */
+    public Optional<AppConfiguration> findCurrentConfig(String configId) {
+        return configStore.findLatest(configId);
+    }
+
+    /**
+     * Applies an RFC 7386 merge patch to the current configuration. Only {@code owner} and
+     * {@code settings} may be patched; the result is revalidated and stored as {@code baseVersion + 1}.
+     *
+     * @param configId    The configuration ID.
+     * @param baseVersion The version the patch was computed against.
+     * @param patch       The merge patch document.
+     * @return The patched configuration.
+     * @throws IllegalArgumentException if the patch is malformed or the result fails validation.
+     * @throws java.util.NoSuchElementException if the configuration does not exist.
+     * @throws com.example.configservice.store.VersionConflictException if the current version is not baseVersion.
+     */
+    @SuppressWarnings("unchecked")
+    public AppConfiguration patchConfig(String configId, int baseVersion, Map<String, Object> patch) {
+        if (patch == null) {
+            throw new IllegalArgumentException("Patch document cannot be empty.");
+        }
+        for (String field : patch.keySet()) {
+            if (!"owner".equals(field) && !"settings".equals(field)) {
+                throw new IllegalArgumentException("Field '" + field + "' cannot be patched.");
+            }
+        }
+        Object owner = patch.get("owner");
+        if (patch.containsKey("owner") && !(owner instanceof String)) {
+            throw new IllegalArgumentException("Owner must be a string.");
+        }
+        Object settings = patch.get("settings");
+        if (patch.containsKey("settings") && !(settings instanceof Map)) {
+            throw new IllegalArgumentException("Settings patch must be an object.");
+        }
+
+        AppConfiguration patched = configStore.patch(configId, baseVersion, (String) owner,
+                (Map<String, Object>) settings, this::validate);
+        configWatchService.publish(patched);
+        return patched;
+    }
+
+    private void validate(AppConfiguration config) {
+        Set<ConstraintViolation<AppConfiguration>> violations = validator.validate(config);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining(" ")));
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.configservice.service;
+
+import com.example.configservice.model.AppConfiguration;
+import com.example.configservice.store.ConfigStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Change notification for configuration consumers.
+ *
+ * Long-poll waiters are parked as {@link DeferredResult}s and SSE subscribers as {@link SseEmitter}s,
+ * so no request thread is held while a client waits. Watchers are indexed per configId in concurrent
+ * sets, which makes registration, removal and fan-out to a single configId independent of the total
+ * number of watchers. SSE writes are handed to a small executor, so a save never waits on a client socket.
+ *
+ * Each SSE subscriber has its own mailbox holding only the latest unsent version per configId, and
+ * is drained by its own task, so one subscriber's backlog is bounded by the ids it watches and other
+ * subscribers are not queued behind it. A blocked socket write still occupies a dispatch thread until
+ * the container gives up on it; a subscriber stuck in one write for longer than the stall timeout
+ * is dropped on its next notification, and so is any subscriber whose drain cannot be queued because
+ * the bounded dispatch queue is full. Dropped clients reconnect and catch up from their last-seen versions.
+ */
+@Service
+public class ConfigWatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigWatchService.class);
+
+    private final ConfigStore configStore;
+    private final long maxPollTimeoutMillis;
+    private final long sseTimeoutMillis;
+    private final int maxWatchedIds;
+    private final long sseStallTimeoutNanos;
+
+    private final Map<String, Set<PollWaiter>> pollWaiters = new ConcurrentHashMap<>();
+    private final Map<String, Set<SseSubscriber>> sseSubscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sseDispatcher;
+
+    public ConfigWatchService(ConfigStore configStore,
+                              @Value("${config.watch.max-poll-timeout-ms:120000}") long maxPollTimeoutMillis,
+                              @Value("${config.watch.sse-timeout-ms:1800000}") long sseTimeoutMillis,
+                              @Value("${config.watch.max-ids:100}") int maxWatchedIds,
+                              @Value("${config.watch.sse-dispatch-threads:4}") int sseDispatchThreads,
+                              @Value("${config.watch.sse-dispatch-queue:10000}") int sseDispatchQueue,
+                              @Value("${config.watch.sse-stall-timeout-ms:10000}") long sseStallTimeoutMillis) {
+        this.configStore = configStore;
+        this.maxPollTimeoutMillis = maxPollTimeoutMillis;
+        this.sseTimeoutMillis = sseTimeoutMillis;
+        this.maxWatchedIds = maxWatchedIds;
+        this.sseStallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sseStallTimeoutMillis);
+        // At most one queued drain per subscriber; a full queue drops the subscriber instead of growing.
+        this.sseDispatcher = new ThreadPoolExecutor(sseDispatchThreads, sseDispatchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sseDispatchQueue), r -> {
+                    Thread t = new Thread(r, "config-watch-sse");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sseDispatcher.shutdownNow();
+    }
+
+    /**
+     * Parks a long-poll request until any watched configId has a version newer than the client's last-seen one.
+     * Completes with the newer configurations, or with 304 Not Modified when the timeout elapses.
+     *
+     * @param lastSeen  Last version the client has seen per configId (0 if none).
+     * @param timeoutMs Requested wait time; capped by the configured maximum.
+     * @throws IllegalArgumentException if no configId or too many configIds are given.
+     */
+    public DeferredResult<ResponseEntity<List<AppConfiguration>>> poll(Map<String, Integer> lastSeen, long timeoutMs) {
+        Map<String, Integer> watched = validate(lastSeen);
+        long timeout = Math.max(1, Math.min(timeoutMs, maxPollTimeoutMillis));
+        DeferredResult<ResponseEntity<List<AppConfiguration>>> result =
+                new DeferredResult<>(timeout, ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        PollWaiter waiter = new PollWaiter(watched, result);
+
+        // Register before checking so a save between the check and registration cannot be missed.
+        for (String configId : watched.keySet()) {
+            pollWaiters.compute(configId, (id, set) -> register(set, waiter));
+        }
+        result.onCompletion(() -> unregister(waiter));
+        waiter.completeIfChanged();
+        return result;
+    }
+
+    /**
+     * Opens a Server-Sent-Events stream that pushes every new version of the watched configIds.
+     * Versions newer than the client's last-seen ones are sent immediately on subscription.
+     *
+     * @param lastSeen Last version the client has seen per configId (0 if none).
+     * @throws IllegalArgumentException if no configId or too many configIds are given.
+     */
+    public SseEmitter subscribe(Map<String, Integer> lastSeen) {
+        Map<String, Integer> watched = validate(lastSeen);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        SseSubscriber subscriber = new SseSubscriber(watched, emitter);
+
+        for (String configId : watched.keySet()) {
+            sseSubscribers.compute(configId, (id, set) -> register(set, subscriber));
+        }
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unregister(subscriber));
+
+        for (String configId : watched.keySet()) {
+            configStore.findLatest(configId).ifPresent(subscriber::offer);
+        }
+        return emitter;
+    }
+
+    /**
+     * Notifies all watchers of the configuration's configId about a newly stored version.
+     */
+    public void publish(AppConfiguration config) {
+        String configId = config.getConfigId();
+        Set<PollWaiter> waiters = pollWaiters.get(configId);
+        if (waiters != null) {
+            for (PollWaiter waiter : waiters) {
+                waiter.completeIfChanged();
+            }
+        }
+        Set<SseSubscriber> subscribers = sseSubscribers.get(configId);
+        if (subscribers != null) {
+            for (SseSubscriber subscriber : subscribers) {
+                subscriber.offer(config);
+            }
+        }
+    }
+
+    private Map<String, Integer> validate(Map<String, Integer> lastSeen) {
+        if (lastSeen == null || lastSeen.isEmpty()) {
+            throw new IllegalArgumentException("At least one configId must be watched.");
+        }
+        if (lastSeen.size() > maxWatchedIds) {
+            throw new IllegalArgumentException("At most " + maxWatchedIds + " configIds can be watched per request.");
+        }
+        Map<String, Integer> watched = new HashMap<>(lastSeen.size() * 4 / 3 + 1);
+        lastSeen.forEach((id, version) -> watched.put(id, version == null ? 0 : version));
+        return watched;
+    }
+
+    // Registration and removal both go through compute so an emptied set is never dropped under a new watcher.
+    private static <T> Set<T> register(Set<T> set, T watcher) {
+        Set<T> target = set == null ? ConcurrentHashMap.newKeySet() : set;
+        target.add(watcher);
+        return target;
+    }
+
+    private void unregister(PollWaiter waiter) {
+        for (String configId : waiter.lastSeen.keySet()) {
+            pollWaiters.computeIfPresent(configId, (id, set) -> {
+                set.remove(waiter);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private void unregister(SseSubscriber subscriber) {
+        for (String configId : subscriber.lastSent.keySet()) {
+            sseSubscribers.computeIfPresent(configId, (id, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private final class PollWaiter {
+        final Map<String, Integer> lastSeen;
+        final DeferredResult<ResponseEntity<List<AppConfiguration>>> result;
+
+        PollWaiter(Map<String, Integer> lastSeen, DeferredResult<ResponseEntity<List<AppConfiguration>>> result) {
+            this.lastSeen = lastSeen;
+            this.result = result;
+        }
+
+        void completeIfChanged() {
+            if (result.isSetOrExpired()) {
+                return;
+            }
+            List<AppConfiguration> changed = new ArrayList<>();
+            lastSeen.forEach((configId, version) -> {
+                Optional<AppConfiguration> current = configStore.findLatest(configId);
+                current.filter(c -> c.getVersion() > version).ifPresent(changed::add);
+            });
+            if (!changed.isEmpty()) {
+                result.setResult(ResponseEntity.ok(changed));
+            }
+        }
+    }
+
+    private final class SseSubscriber {
+        final Map<String, Integer> lastSent;
+        final SseEmitter emitter;
+        // Latest unsent version per configId; a newer version replaces one that was not sent yet.
+        private final Map<String, AppConfiguration> mailbox = new ConcurrentHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // System.nanoTime() when the write in progress started, or 0 when idle.
+        private volatile long sendStartedNanos;
+
+        SseSubscriber(Map<String, Integer> lastSeen, SseEmitter emitter) {
+            this.lastSent = new ConcurrentHashMap<>(lastSeen);
+            this.emitter = emitter;
+        }
+
+        void offer(AppConfiguration config) {
+            if (closed.get()) {
+                return;
+            }
+            long started = sendStartedNanos;
+            if (started != 0 && System.nanoTime() - started > sseStallTimeoutNanos) {
+                close(new IOException("Client stalled in a single write for longer than the stall timeout."));
+                return;
+            }
+            mailbox.merge(config.getConfigId(), config,
+                    (queued, offered) -> offered.getVersion() > queued.getVersion() ? offered : queued);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    sseDispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    close(e);
+                }
+            }
+        }
+
+        // Only one drain runs per subscriber at a time, so versions are never delivered out of order.
+        private void drain() {
+            try {
+                for (String configId : mailbox.keySet()) {
+                    AppConfiguration config = mailbox.remove(configId);
+                    if (config != null && !send(config)) {
+                        return;
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // Something offered after the loop passed its configId, while scheduled was still set.
+            if (!mailbox.isEmpty() && !closed.get()) {
+                schedule();
+            }
+        }
+
+        private boolean send(AppConfiguration config) {
+            Integer sent = lastSent.get(config.getConfigId());
+            if (sent == null || config.getVersion() <= sent) {
+                return true;
+            }
+            sendStartedNanos = System.nanoTime();
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(config.getConfigId() + ":" + config.getVersion())
+                        .name("config")
+                        .data(config));
+                lastSent.put(config.getConfigId(), config.getVersion());
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                close(e);
+                return false;
+            } finally {
+                sendStartedNanos = 0;
+            }
+        }
+
+        private void close(Exception cause) {
+            if (closed.compareAndSet(false, true)) {
+                logger.debug("Dropping config watcher: {}", cause.getMessage());
+                mailbox.clear();
+                unregister(this);
+                emitter.completeWithError(cause);
+            }
+        }
+    }
+}
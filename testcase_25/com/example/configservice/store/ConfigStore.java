@@ -0,0 +1,494 @@
+package com.example.configservice.store;
+
+import com.example.configservice.codec.CompressionCodec;
+import com.example.configservice.codec.CompressionStats;
+import com.example.configservice.codec.ConfigBinaryCodec;
+import com.example.configservice.model.AppConfiguration;
+import com.example.configservice.patch.JsonMergePatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Embedded, append-only store for versioned {@link AppConfiguration} records.
+ *
+ * Records are appended to numbered segment files as
+ * {@code [int length][int crc32][byte kind][payload]}, where the payload is the
+ * {@link ConfigBinaryCodec} encoding and the CRC covers kind and payload. A record is either
+ * a full snapshot or a merge-patch delta against the previous version; after a configurable
+ * number of deltas the next write is a full snapshot again. Payloads above a size threshold
+ * are deflated when that makes them smaller, which is flagged in the kind byte. The latest
+ * version of each configId is kept decoded in memory, so current reads never touch disk.
+ *
+ * On startup every segment is scanned through a read-only memory mapping; a torn or
+ * corrupt tail (e.g. from a crash mid-append) is truncated at the last valid record.
+ * A background task rewrites the live records of mostly-superseded sealed segments into
+ * the active segment, forces it to disk and only then deletes the old file, so a crash at
+ * any point leaves a log that recovers to the same latest versions. Segments are always forced
+ * when they are sealed, whatever the fsync setting, so records that a roll moved out of the
+ * active segment during compaction are durable too.
+ */
+@Component
+public class ConfigStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigStore.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 9;
+    static final byte KIND_FULL = 1;
+    static final byte KIND_DELTA = 2;
+    static final byte FLAG_DEFLATED = 0x40;
+    private static final long MAX_INFLATED_BYTES = 256L * 1024 * 1024;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final double compactionThreshold;
+    private final long compactionIntervalSeconds;
+    private final boolean fsync;
+    private final int snapshotInterval;
+    private final int compressMinBytes;
+    private final CompressionStats compressionStats = new CompressionStats();
+    private final ConfigBinaryCodec codec = new ConfigBinaryCodec();
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // Single writer: appends, segment rolls and compaction all serialize on this lock.
+    private final Object writeLock = new Object();
+    private volatile Segment active;
+    private ScheduledExecutorService compactor;
+
+    public ConfigStore(@Value("${config.store.dir:data/config-store}") String directory,
+                       @Value("${config.store.segment-bytes:67108864}") long maxSegmentBytes,
+                       @Value("${config.store.compaction-threshold:0.5}") double compactionThreshold,
+                       @Value("${config.store.compaction-interval-seconds:60}") long compactionIntervalSeconds,
+                       @Value("${config.store.fsync:true}") boolean fsync,
+                       @Value("${config.store.snapshot-interval:16}") int snapshotInterval,
+                       @Value("${config.store.compress-min-bytes:512}") int compressMinBytes) {
+        this.directory = Paths.get(directory);
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.compactionThreshold = compactionThreshold;
+        this.compactionIntervalSeconds = compactionIntervalSeconds;
+        this.fsync = fsync;
+        this.snapshotInterval = snapshotInterval;
+        this.compressMinBytes = compressMinBytes;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = new ArrayList<>();
+            listing.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).forEach(files::add);
+        }
+        for (Path file : files) {
+            Segment segment = new Segment(segmentId(file), file);
+            segments.put(segment.id, segment);
+        }
+        for (Segment segment : segments.values()) {
+            recover(segment);
+        }
+
+        Map.Entry<Long, Segment> last = segments.lastEntry();
+        if (last != null && last.getValue().size.get() < maxSegmentBytes) {
+            active = last.getValue();
+            active.openForAppend();
+        } else {
+            active = createSegment(last == null ? 0 : last.getKey() + 1);
+        }
+        logger.info("Config store opened at {}: {} configurations in {} segments.",
+                directory, index.size(), segments.size());
+
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "config-store-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(this::compactQuietly,
+                compactionIntervalSeconds, compactionIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        synchronized (writeLock) {
+            for (Segment segment : segments.values()) {
+                segment.closeQuietly();
+            }
+        }
+    }
+
+    /**
+     * Returns the latest stored version of the configuration, served from memory.
+     * The returned object is shared and must be treated as read-only.
+     */
+    public Optional<AppConfiguration> findLatest(String configId) {
+        Entry entry = index.get(configId);
+        return entry == null ? Optional.empty() : Optional.of(entry.config);
+    }
+
+    /**
+     * Returns up to {@code limit} current configurations, e.g. as samples for dictionary training.
+     */
+    public List<AppConfiguration> sampleLatest(int limit) {
+        List<AppConfiguration> samples = new ArrayList<>(Math.min(limit, index.size()));
+        for (Entry entry : index.values()) {
+            if (samples.size() >= limit) {
+                break;
+            }
+            samples.add(entry.config);
+        }
+        return samples;
+    }
+
+    /**
+     * Durably appends a new version of the configuration.
+     *
+     * @return The stored configuration as it will be served by {@link #findLatest(String)}.
+     * @throws VersionConflictException if the version is not newer than the stored one.
+     * @throws UncheckedIOException     if the record could not be written.
+     */
+    public AppConfiguration save(AppConfiguration config) {
+        byte[] payload = codec.encode(config);
+        AppConfiguration stored = decode(payload);
+        synchronized (writeLock) {
+            Entry current = index.get(config.getConfigId());
+            if (current != null && config.getVersion() <= current.config.getVersion()) {
+                throw new VersionConflictException(config.getConfigId(), current.config.getVersion(), config.getVersion());
+            }
+            try {
+                install(stored, List.of(append(stored.getConfigId(), KIND_FULL, payload)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append configuration record.", e);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Applies a merge patch to the current version and durably appends the result as version
+     * {@code baseVersion + 1}. Only the patch is written unless a snapshot is due.
+     *
+     * @param owner         New owner, or null to keep the current one.
+     * @param settingsPatch RFC 7386 merge patch for the settings map.
+     * @param validator     Checks the patched configuration before anything is written; throws to reject it.
+     * @return The patched configuration as it will be served by {@link #findLatest(String)}.
+     * @throws NoSuchElementException   if the configuration does not exist.
+     * @throws VersionConflictException if the current version is not {@code baseVersion}.
+     * @throws UncheckedIOException     if the record could not be written.
+     */
+    public AppConfiguration patch(String configId, int baseVersion, String owner, Map<String, Object> settingsPatch,
+                                  Consumer<AppConfiguration> validator) {
+        synchronized (writeLock) {
+            Entry current = index.get(configId);
+            if (current == null) {
+                throw new NoSuchElementException("Configuration '" + configId + "' does not exist.");
+            }
+            if (current.config.getVersion() != baseVersion) {
+                throw new VersionConflictException(configId, current.config.getVersion(), baseVersion);
+            }
+            AppConfiguration patched = applyDelta(current.config, owner, settingsPatch);
+            validator.accept(patched);
+            try {
+                if (current.chain.size() > snapshotInterval) {
+                    install(patched, List.of(append(configId, KIND_FULL, codec.encode(patched))));
+                } else {
+                    AppConfiguration delta = new AppConfiguration(configId, patched.getVersion(), owner, settingsPatch);
+                    List<RecordRef> chain = new ArrayList<>(current.chain);
+                    chain.add(append(configId, KIND_DELTA, codec.encode(delta)));
+                    install(patched, chain);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append configuration delta.", e);
+            }
+            return patched;
+        }
+    }
+
+    private static AppConfiguration applyDelta(AppConfiguration base, String owner, Map<String, Object> settingsPatch) {
+        return new AppConfiguration(base.getConfigId(), base.getVersion() + 1,
+                owner != null ? owner : base.getOwner(),
+                settingsPatch == null ? base.getSettings() : JsonMergePatch.applyToSettings(base.getSettings(), settingsPatch));
+    }
+
+    // --- Write path ---
+
+    /**
+     * Returns storage compression counters per configId.
+     */
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
+    }
+
+    private RecordRef append(String configId, byte kind, byte[] encoded) throws IOException {
+        byte[] payload = encoded;
+        if (encoded.length >= compressMinBytes) {
+            long start = System.nanoTime();
+            byte[] deflated = CompressionCodec.deflate(encoded, Deflater.DEFAULT_COMPRESSION, null);
+            compressionStats.record(configId, encoded.length, Math.min(deflated.length, encoded.length),
+                    System.nanoTime() - start);
+            if (deflated.length < encoded.length) {
+                payload = deflated;
+                kind |= FLAG_DEFLATED;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(kind);
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(kind).put(payload).flip();
+        return appendRecord(record);
+    }
+
+    private RecordRef appendRecord(ByteBuffer record) throws IOException {
+        Segment segment = active;
+        long offset = segment.size.get();
+        int length = record.remaining();
+        while (record.hasRemaining()) {
+            segment.channel.write(record, offset + (length - record.remaining()));
+        }
+        if (fsync) {
+            segment.channel.force(false);
+        }
+        segment.size.addAndGet(length);
+        if (segment.size.get() >= maxSegmentBytes) {
+            // Forced regardless of fsync: compaction may delete the segment these records were copied from.
+            segment.channel.force(false);
+            active = createSegment(segment.id + 1);
+            segment.closeQuietly();
+        }
+        return new RecordRef(segment, length);
+    }
+
+    /**
+     * Makes the configuration current. The chain lists every record needed to rebuild it
+     * (the last snapshot plus the deltas after it); those records count as live bytes.
+     */
+    private void install(AppConfiguration config, List<RecordRef> chain) {
+        Entry previous = index.put(config.getConfigId(), new Entry(config, chain));
+        List<RecordRef> old = previous == null ? List.of() : previous.chain;
+        for (RecordRef ref : old) {
+            if (!chain.contains(ref)) {
+                ref.segment.liveBytes.addAndGet(-ref.recordBytes);
+            }
+        }
+        for (RecordRef ref : chain) {
+            if (!old.contains(ref)) {
+                ref.segment.liveBytes.addAndGet(ref.recordBytes);
+            }
+        }
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        Segment segment = new Segment(id, directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX)));
+        segment.openForAppend();
+        segments.put(id, segment);
+        return segment;
+    }
+
+    // --- Recovery ---
+
+    private void recover(Segment segment) throws IOException {
+        long validEnd = 0;
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            while (mapped.remaining() >= HEADER_BYTES) {
+                int position = mapped.position();
+                int length = mapped.getInt();
+                int expectedCrc = mapped.getInt();
+                byte kind = mapped.get();
+                if (length < 0 || length > mapped.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                mapped.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(kind);
+                crc.update(payload);
+                byte baseKind = (byte) (kind & ~FLAG_DEFLATED);
+                if ((int) crc.getValue() != expectedCrc || (baseKind != KIND_FULL && baseKind != KIND_DELTA)) {
+                    break;
+                }
+                AppConfiguration record = decode((kind & FLAG_DEFLATED) != 0
+                        ? CompressionCodec.inflate(payload, MAX_INFLATED_BYTES) : payload);
+                Entry current = index.get(record.getConfigId());
+                RecordRef ref = new RecordRef(segment, HEADER_BYTES + length);
+                if (baseKind == KIND_FULL) {
+                    // Later snapshots win on equal versions: compaction re-appends the versions it keeps.
+                    if (current == null || record.getVersion() >= current.config.getVersion()) {
+                        install(record, List.of(ref));
+                    }
+                } else if (current != null && record.getVersion() == current.config.getVersion() + 1) {
+                    List<RecordRef> chain = new ArrayList<>(current.chain);
+                    chain.add(ref);
+                    install(applyDelta(current.config, record.getOwner(), record.getSettings()), chain);
+                }
+                // Any other delta belongs to a chain whose snapshot was compacted away;
+                // a newer snapshot for that configId follows later in the log.
+                validEnd = position + HEADER_BYTES + length;
+            }
+            if (validEnd < fileSize) {
+                logger.warn("Truncating segment {} from {} to {} bytes after an incomplete or corrupt record.",
+                        segment.path.getFileName(), fileSize, validEnd);
+            }
+        }
+        if (validEnd < Files.size(segment.path)) {
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+        }
+        segment.size.set(validEnd);
+    }
+
+    // --- Compaction ---
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (Exception e) {
+            logger.error("Config store compaction failed.", e);
+        }
+    }
+
+    /**
+     * Rewrites configurations that still depend on sealed segments whose live ratio fell below
+     * the threshold as fresh snapshots, then deletes the old segment files.
+     */
+    public void compact() throws IOException {
+        for (Segment segment : segments.values()) {
+            if (segment == active) {
+                continue;
+            }
+            long size = segment.size.get();
+            if (size == 0 || (double) segment.liveBytes.get() / size < compactionThreshold) {
+                compactSegment(segment);
+            }
+        }
+    }
+
+    private void compactSegment(Segment segment) throws IOException {
+        synchronized (writeLock) {
+            List<Entry> live = new ArrayList<>();
+            for (Entry entry : index.values()) {
+                if (entry.dependsOn(segment)) {
+                    live.add(entry);
+                }
+            }
+            if (!live.isEmpty()) {
+                for (Entry entry : live) {
+                    install(entry.config, List.of(append(entry.config.getConfigId(), KIND_FULL, codec.encode(entry.config))));
+                }
+                active.channel.force(false);
+            }
+            segments.remove(segment.id);
+            segment.closeQuietly();
+            Files.deleteIfExists(segment.path);
+            logger.info("Compacted segment {} ({} live records moved).", segment.path.getFileName(), live.size());
+        }
+    }
+
+    // --- Helpers ---
+
+    private AppConfiguration decode(byte[] payload) {
+        try {
+            return codec.decode(new ByteArrayInputStream(payload));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Stored configuration record is unreadable.", e);
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Entry {
+        final AppConfiguration config;
+        final List<RecordRef> chain;
+
+        Entry(AppConfiguration config, List<RecordRef> chain) {
+            this.config = config;
+            this.chain = chain;
+        }
+
+        boolean dependsOn(Segment segment) {
+            for (RecordRef ref : chain) {
+                if (ref.segment == segment) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class RecordRef {
+        final Segment segment;
+        final int recordBytes;
+
+        RecordRef(Segment segment, int recordBytes) {
+            this.segment = segment;
+            this.recordBytes = recordBytes;
+        }
+    }
+
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final AtomicLong size = new AtomicLong();
+        final AtomicLong liveBytes = new AtomicLong();
+        FileChannel channel;
+
+        Segment(long id, Path path) {
+            this.id = id;
+            this.path = path;
+        }
+
+        void openForAppend() throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+
+        void closeQuietly() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close segment {}.", path.getFileName(), e);
+                }
+                channel = null;
+            }
+        }
+    }
+}
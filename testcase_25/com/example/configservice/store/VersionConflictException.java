@@ -0,0 +1,25 @@
+package com.example.configservice.store;
+
+/**
+ * Thrown when a write targets a configuration version that is not newer than the stored one.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private final String configId;
+    private final int currentVersion;
+
+    public VersionConflictException(String configId, int currentVersion, int attemptedVersion) {
+        super("Configuration '" + configId + "' is at version " + currentVersion
+                + "; version " + attemptedVersion + " is stale.");
+        this.configId = configId;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getConfigId() {
+        return configId;
+    }
+
+    public int getCurrentVersion() {
+        return currentVersion;
+    }
+}
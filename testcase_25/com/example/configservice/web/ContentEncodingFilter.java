@@ -0,0 +1,133 @@
+package com.example.configservice.web;
+
+import com.example.configservice.service.ConfigCompressionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * Transparently decompresses configuration request bodies sent with a Content-Encoding header,
+ * so every /api/config endpoint (JSON save, binary and JSON load) accepts compressed payloads.
+ */
+@Component
+public class ContentEncodingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentEncodingFilter.class);
+
+    private final ConfigCompressionService compressionService;
+
+    public ContentEncodingFilter(ConfigCompressionService compressionService) {
+        this.compressionService = compressionService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encoding == null || encoding.isBlank() || "identity".equalsIgnoreCase(encoding.trim())
+                || !request.getRequestURI().startsWith(request.getContextPath() + "/api/config/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        InputStream decoded;
+        try {
+            decoded = compressionService.decodeRequestBody(request.getHeader(HttpHeaders.CONTENT_ENCODING),
+                    request.getInputStream());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected request with unsupported content encoding: {}", e.getMessage());
+            response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+            return;
+        } catch (IOException e) {
+            logger.warn("Rejected request with a malformed compressed body: {}", e.getMessage());
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        chain.doFilter(new DecodedRequest(request, decoded), response);
+    }
+
+    private static final class DecodedRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream body;
+
+        DecodedRequest(HttpServletRequest request, InputStream decoded) {
+            super(request);
+            this.body = new DecodedInputStream(decoded);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+    }
+
+    private static final class DecodedInputStream extends ServletInputStream {
+
+        private final InputStream delegate;
+        private boolean finished;
+
+        DecodedInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = delegate.read(b, off, len);
+            finished = n < 0;
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            // The decoder blocks, so behave like a container stream outside async mode, as the servlet contract requires.
+            Objects.requireNonNull(readListener, "readListener");
+            throw new IllegalStateException("Decompressed request bodies can only be read with blocking IO.");
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
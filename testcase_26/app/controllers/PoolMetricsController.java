@@ -0,0 +1,30 @@
+package controllers;
+
+import play.libs.Json;
+import play.mvc.Controller;
+import play.mvc.Result;
+import play.mvc.Security;
+import services.DatabaseExecutionContext;
+
+import javax.inject.Inject;
+
+/**
+ * Exposes saturation metrics of the database execution context for monitoring.
+ */
+@Security.Authenticated(Authenticator.class)
+public class PoolMetricsController extends Controller {
+
+    private final DatabaseExecutionContext dbExecutionContext;
+
+    @Inject
+    public PoolMetricsController(DatabaseExecutionContext dbExecutionContext) {
+        this.dbExecutionContext = dbExecutionContext;
+    }
+
+    /**
+     * Returns pool size, active and queued tasks, rejections and queue wait times as JSON.
+     */
+    public Result databasePool() {
+        return ok(Json.toJson(dbExecutionContext.metrics()));
+    }
+}
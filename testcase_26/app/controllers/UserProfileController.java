@@ -4,7 +4,10 @@ import play.data.Form;
 import play.data.FormFactory;
 import play.data.validation.Constraints;
 import play.filters.csrf.RequireCSRFCheck;
+import play.i18n.MessagesApi;
+import play.libs.concurrent.HttpExecutionContext;
 import play.mvc.Controller;
+import play.mvc.Http;
 import play.mvc.Result;
 import play.mvc.Security;
 import services.UserService;
@@ -12,8 +15,13 @@ import models.User;
 import views.html.profile;
 
 import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Custom authentication class to simulate checking the session for a logged-in user ID.
@@ -52,11 +60,16 @@ public class UserProfileController extends Controller {
 
     private final FormFactory formFactory;
     private final UserService userService;
+    private final HttpExecutionContext httpExecutionContext;
+    private final MessagesApi messagesApi;
 
     @Inject
-    public UserProfileController(FormFactory formFactory, UserService userService) {
+    public UserProfileController(FormFactory formFactory, UserService userService,
+                                 HttpExecutionContext httpExecutionContext, MessagesApi messagesApi) {
         this.formFactory = formFactory;
         this.userService = userService;
+        this.httpExecutionContext = httpExecutionContext;
+        this.messagesApi = messagesApi;
     }
 
     /**
@@ -67,28 +80,73 @@ public class UserProfileController extends Controller {
         return Long.valueOf(request.session().get("userId").orElse("0"));
     }
 
+    /**
+     * Builds an ETag for the profile page from the user version, locale and session CSRF token,
+     * so a client only revalidates against the page it got in the same session.
+     * Empty when the session holds no CSRF token yet.
+     */
+    private Optional<String> profileETag(User user, Http.Request request) {
+        return request.session().get("csrfToken").map(token -> {
+            String lang = messagesApi.preferred(request).lang().code();
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256")
+                        .digest(token.getBytes(StandardCharsets.UTF_8));
+                StringBuilder sessionHash = new StringBuilder();
+                for (int i = 0; i < 8; i++) {
+                    sessionHash.append(String.format("%02x", digest[i]));
+                }
+                return "W/\"" + user.getId() + "-" + user.getVersion() + "-" + lang + "-" + sessionHash + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available.", e);
+            }
+        });
+    }
+
+    /**
+     * Maps a saturated database pool to 503 Service Unavailable; any other failure is passed on.
+     */
+    private Result busyOrRethrow(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return status(SERVICE_UNAVAILABLE, "The service is busy. Please retry later.")
+                    .withHeader(Http.HeaderNames.RETRY_AFTER, "1");
+        }
+        throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+    }
+
     /**
      * Renders the user profile page with the email update form.
+     * Answers 304 Not Modified, without rendering, when the client already holds the page for the
+     * current user version.
      */
-    public CompletionStage<Result> profile(play.mvc.Http.Request request) {
+    public CompletionStage<Result> profile(play.mvc.Http.Request originalRequest) {
         // Simulate setting a session for testing purposes if it's missing
-        if (request.session().get("userId").isEmpty()) {
-            request = request.addingToSession("userId", "101");
-        }
+        Http.Request request = originalRequest.session().get("userId").isEmpty()
+                ? originalRequest.addingToSession("userId", "101")
+                : originalRequest;
 
         Long userId = getAuthenticatedUserId(request);
 
-        return userService.findById(userId).thenApply(maybeUser -> {
+        // Render on Play's default dispatcher, not on the database pool that may complete the lookup.
+        return userService.findById(userId).thenApplyAsync(maybeUser -> {
             if (maybeUser.isPresent()) {
                 User user = maybeUser.get();
+                // Pages carrying a flash message are one-off and never revalidated.
+                Optional<String> etag = request.flash().data().isEmpty()
+                        ? profileETag(user, request) : Optional.empty();
+                if (etag.isPresent() && etag.equals(request.header(Http.HeaderNames.IF_NONE_MATCH))) {
+                    return status(NOT_MODIFIED).withHeader(Http.HeaderNames.ETAG, etag.get());
+                }
                 // Pass the form object to the view for binding and CSRF token generation
                 Form<EmailUpdateData> emailForm = formFactory.form(EmailUpdateData.class);
-                return ok(profile.render(user, emailForm, request));
+                Result page = ok(profile.render(user, emailForm, request))
+                        .withHeader(Http.HeaderNames.CACHE_CONTROL, "private, no-cache");
+                return etag.map(tag -> page.withHeader(Http.HeaderNames.ETAG, tag)).orElse(page);
             } else {
                 // Defensive error handling
                 return forbidden("Access denied: User profile data unavailable.");
             }
-        });
+        }, httpExecutionContext.current()).exceptionally(this::busyOrRethrow);
     }
 
     /**
@@ -107,13 +165,13 @@ public class UserProfileController extends Controller {
         if (boundForm.hasErrors()) {
             // SECURE: Do not leak validation details beyond the form context.
             Long userId = getAuthenticatedUserId(request);
-            return userService.findById(userId).thenApply(maybeUser -> {
+            return userService.findById(userId).thenApplyAsync(maybeUser -> {
                 if (maybeUser.isPresent()) {
                     // Re-render the page, showing validation errors to the user
                     return badRequest(profile.render(maybeUser.get(), boundForm, request));
                 }
                 return internalServerError("Error processing form data.");
-            });
+            }, httpExecutionContext.current()).exceptionally(this::busyOrRethrow);
         }
 
         EmailUpdateData data = boundForm.get();
@@ -122,7 +180,7 @@ public class UserProfileController extends Controller {
         String newEmail = data.newEmail.trim();
 
         // 3. Least Privilege Execution: Use session-derived ID for update
-        return userService.persistNewEmail(userId, newEmail).thenApply(success -> {
+        return userService.persistNewEmail(userId, newEmail).thenApplyAsync(success -> {
             if (success) {
                 flash("success", "Your email address has been updated successfully.");
             } else {
@@ -131,5 +189,6 @@ public class UserProfileController extends Controller {
             }
             // Redirect after POST to prevent double submission
             return redirect(routes.UserProfileController.profile()).withSession("userId", String.valueOf(userId));
-        });
-    }
\ No newline at end of file
+        }, httpExecutionContext.current()).exceptionally(this::busyOrRethrow);
+    }
+}
@@ -21,20 +21,26 @@ public class User {
     @Email
     private String email;
 
+    // Incremented on every change; lets caches and clients tell whether their copy is current.
+    private long version;
+
     public User(Long id, String username, String email) {
+        this(id, username, email, 0L);
+    }
+
+    public User(Long id, String username, String email, long version) {
         this.id = id;
         this.username = username;
         this.email = email;
+        this.version = version;
     }
 
     // Standard Getters
     public Long getId() { return id; }
     public String getUsername() { return username; }
     public String getEmail() { return email; }
+    public long getVersion() { return version; }
 
-    // Setter for the mutable field
-    public void setEmail(String email) {
-        // Secure: In a real JPA environment, this setter would be part of a transaction.
-        this.email = email;
-    }
+    // No setters: instances are shared through ShardedUserTable, and email changes go through
+    // compareAndSetEmail so the version is bumped and cached copies are invalidated.
 }
\ No newline at end of file
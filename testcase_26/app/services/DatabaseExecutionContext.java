@@ -0,0 +1,99 @@
+package services;
+
+import akka.actor.ActorSystem;
+import com.typesafe.config.Config;
+import play.libs.concurrent.CustomExecutionContext;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution context for blocking persistence work, backed by the "database.dispatcher"
+ * thread pool configured in application.conf so it never competes with request rendering.
+ *
+ * The pool has a fixed number of threads and a bounded task queue. Akka's own handler for a full
+ * queue would run the task on the submitting thread, i.e. on Play's default dispatcher or the
+ * scheduler, so this context never lets the queue fill: once as many tasks are waiting as the
+ * configured queue size, {@link #execute(Runnable)} throws {@link RejectedExecutionException} and
+ * callers fail fast (503) instead. Every task is wrapped to track queued and active tasks, rejections
+ * and queue wait time, which {@link #metrics()} reports as pool saturation.
+ */
+@Singleton
+public class DatabaseExecutionContext extends CustomExecutionContext {
+
+    private final int poolSize;
+    private final int maxQueued;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    @Inject
+    public DatabaseExecutionContext(ActorSystem actorSystem, Config config) {
+        super(actorSystem, "database.dispatcher");
+        this.poolSize = config.getInt("database.dispatcher.thread-pool-executor.fixed-pool-size");
+        this.maxQueued = config.getInt("database.dispatcher.thread-pool-executor.task-queue-size");
+    }
+
+    /**
+     * Queues the task on the database pool.
+     * @throws RejectedExecutionException if the configured number of tasks is already waiting.
+     */
+    @Override
+    public void execute(Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        // Tasks leave this count only once they start, so the dispatcher's queue can never be fuller.
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("Database pool queue is full (" + maxQueued + " tasks waiting).");
+        }
+        try {
+            super.execute(() -> {
+                long waited = System.nanoTime() - enqueuedAt;
+                queued.decrementAndGet();
+                queueWaitNanos.add(waited);
+                maxQueueWaitNanos.accumulateAndGet(waited, Math::max);
+                peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a point-in-time view of pool saturation.
+     */
+    public Map<String, Object> metrics() {
+        long done = completed.sum();
+        int running = active.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", poolSize);
+        metrics.put("active", running);
+        metrics.put("queued", queued.get());
+        metrics.put("saturation", (double) running / poolSize);
+        metrics.put("peakActive", peakActive.get());
+        metrics.put("completed", done);
+        metrics.put("rejected", rejected.sum());
+        metrics.put("avgQueueWaitMillis", done == 0 ? 0.0 : queueWaitNanos.sum() / 1_000_000.0 / done);
+        metrics.put("maxQueueWaitMillis", maxQueueWaitNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+}
@@ -0,0 +1,36 @@
+package services;
+
+import models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Default backend that simulates a batched database update.
+ * In a real application, this would use JPA/JDBC with parameterized batch statements.
+ */
+@Singleton
+public class LoggingUserPersistenceBackend implements UserPersistenceBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingUserPersistenceBackend.class);
+
+    @Override
+    public void persistBatch(Collection<User> users) {
+        logger.debug("DB Transaction: Persisting batch of {} user update(s)", users.size());
+        if (logger.isDebugEnabled()) {
+            // Ids and versions only: email addresses are personal data and stay out of the logs.
+            for (User user : users) {
+                logger.debug("DB Transaction: Updating user {} to version {}", user.getId(), user.getVersion());
+            }
+        }
+    }
+
+    @Override
+    public Optional<User> load(Long id) {
+        // The simulated database holds no users beyond those seeded into the in-memory table.
+        return Optional.empty();
+    }
+}
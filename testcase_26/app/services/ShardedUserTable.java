@@ -0,0 +1,88 @@
+package services;
+
+import models.User;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory user table keyed by id, split into lock-striped shards.
+ *
+ * Each shard guards its own map with a read/write lock, so lookups and updates for users in
+ * different shards never contend. Stored {@link User} instances are never mutated; an update
+ * swaps in a new instance, which lets readers use what they got without holding a lock.
+ */
+public class ShardedUserTable {
+
+    private final Shard[] shards;
+    private final int mask;
+
+    public ShardedUserTable(int shardCount) {
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        this.shards = new Shard[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public Optional<User> get(Long id) {
+        Shard shard = shardFor(id);
+        shard.lock.readLock().lock();
+        try {
+            return Optional.ofNullable(shard.users.get(id));
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts the user unless one with the same id already exists.
+     *
+     * @return true if the user was inserted.
+     */
+    public boolean putIfAbsent(User user) {
+        Shard shard = shardFor(user.getId());
+        shard.lock.writeLock().lock();
+        try {
+            return shard.users.putIfAbsent(user.getId(), user) == null;
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atomically replaces the user's email if it still equals expectedEmail.
+     *
+     * @return The updated user, or empty if the user does not exist or the email has changed.
+     */
+    public Optional<User> compareAndSetEmail(Long id, String expectedEmail, String newEmail) {
+        Shard shard = shardFor(id);
+        shard.lock.writeLock().lock();
+        try {
+            User current = shard.users.get(id);
+            if (current == null || !Objects.equals(current.getEmail(), expectedEmail)) {
+                return Optional.empty();
+            }
+            User updated = new User(current.getId(), current.getUsername(), newEmail, current.getVersion() + 1);
+            shard.users.put(id, updated);
+            return Optional.of(updated);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    private Shard shardFor(Long id) {
+        // Spread sequential ids across shards (Fibonacci hashing).
+        long h = id * 0x9E3779B97F4A7C15L;
+        return shards[(int) (h >>> 32) & mask];
+    }
+
+    private static final class Shard {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final Map<Long, User> users = new HashMap<>();
+    }
+}
@@ -0,0 +1,32 @@
+package services;
+
+import com.google.inject.ImplementedBy;
+import models.User;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Durable storage behind the in-memory user table.
+ * Bind a different implementation in a Guice module to persist somewhere else.
+ */
+@ImplementedBy(LoggingUserPersistenceBackend.class)
+public interface UserPersistenceBackend {
+
+    /**
+     * Writes the latest state of each user in one batch. Called from the database execution context,
+     * so implementations may block.
+     *
+     * @param users Users changed since the previous flush; at most one entry per id.
+     */
+    void persistBatch(Collection<User> users);
+
+    /**
+     * Loads a user that is not in the in-memory table yet. Called from the database execution context,
+     * so implementations may block.
+     *
+     * @param id The user ID.
+     * @return The stored user, if any.
+     */
+    Optional<User> load(Long id);
+}
@@ -1,55 +1,110 @@
 package services;
 
+import com.typesafe.config.Config;
 import models.User;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service layer for User business logic and persistence simulation.
  * Handles database interactions securely.
+ *
+ * Users live in a sharded, lock-striped in-memory table; changes are written behind
+ * to the {@link UserPersistenceBackend} in batches on the database execution context.
+ * Any call that has to reach the backend runs via supplyAsync on the
+ * {@link DatabaseExecutionContext}, never on Play's default dispatcher.
  */
 @Singleton
 public class UserService {
 
-    // Simulated database storage for demonstration
-    private User currentUser = new User(101L, "secure_dev", "old.email@example.com");
+    private final ShardedUserTable users;
+    private final UserWriteBehind writeBehind;
+    private final UserPersistenceBackend backend;
+    private final DatabaseExecutionContext dbExecutionContext;
 
     @Inject
-    public UserService() {
-        // Service initialization
+    public UserService(Config config, UserWriteBehind writeBehind, UserPersistenceBackend backend,
+                       DatabaseExecutionContext dbExecutionContext) {
+        this.users = new ShardedUserTable(config.getInt("users.shards"));
+        this.writeBehind = writeBehind;
+        this.backend = backend;
+        this.dbExecutionContext = dbExecutionContext;
+        // Seed the demonstration account.
+        users.putIfAbsent(new User(101L, "secure_dev", "old.email@example.com"));
     }
 
     /**
      * Fetches the user profile based on the authenticated ID.
+     * Served from memory when cached; otherwise loaded from the backend on the database execution context.
      * @param userId The ID of the logged-in user.
-     * @return CompletionStage containing the User object.
+     * @return CompletionStage containing the User object; fails with RejectedExecutionException
+     *         if the database pool is saturated.
      */
     public CompletionStage<Optional<User>> findById(Long userId) {
         // SECURE: Ensures only the authenticated user's data is retrieved (Least Privilege)
-        if (currentUser.getId().equals(userId)) {
-            return CompletableFuture.completedFuture(Optional.of(currentUser));
+        Optional<User> cached = users.get(userId);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                Optional<User> loaded = backend.load(userId);
+                // Keep whichever copy won a concurrent load so all callers see the same instance.
+                loaded.ifPresent(users::putIfAbsent);
+                return loaded.isPresent() ? users.get(userId) : loaded;
+            }, dbExecutionContext);
+        } catch (RejectedExecutionException e) {
+            // The database pool is saturated; fail the stage so the controller can answer 503.
+            return CompletableFuture.failedFuture(e);
         }
-        return CompletableFuture.completedFuture(Optional.empty());
     }
 
     /**
      * Persists the new email address for the specified user.
-     * In a real application, this would use JPA/JDBC with parameterized queries.
+     * The in-memory table is updated atomically; the database write happens behind.
      * @param userId The ID of the user whose email is being updated (derived from session).
      * @param newEmail The validated new email address.
      * @return CompletionStage indicating success or failure.
      */
     public CompletionStage<Boolean> persistNewEmail(Long userId, String newEmail) {
-        // SECURE: Authorization check - ensure the ID from the session matches the record being updated.
-        if (currentUser.getId().equals(userId)) {
-            // Simulate safe database update using ORM/Parameterized Query
-            System.out.println("DB Transaction: Updating user " + userId + " email to: " + newEmail);
-            currentUser.setEmail(newEmail);
-            return CompletableFuture.completedFuture(true);
+        // SECURE: Authorization check - only the record keyed by the session-derived ID is updated.
+        // findById loads the user into the table first if it is not cached yet.
+        return findById(userId).thenApply(maybeUser -> maybeUser.isPresent() && replaceEmail(userId, newEmail));
+    }
+
+    private boolean replaceEmail(Long userId, String newEmail) {
+        while (true) {
+            Optional<User> current = users.get(userId);
+            if (current.isEmpty()) {
+                return false;
+            }
+            Optional<User> updated = users.compareAndSetEmail(userId, current.get().getEmail(), newEmail);
+            if (updated.isPresent()) {
+                onEmailChanged(updated.get());
+                return true;
+            }
+            // Another request changed the email in between; retry against the new value.
         }
-        return CompletableFuture.completedFuture(false);
     }
-}
\ No newline at end of file
+
+    /**
+     * Changes the email only if it still has the expected value.
+     * @param userId The ID of the user whose email is being updated.
+     * @param expectedEmail The email the caller last saw.
+     * @param newEmail The validated new email address.
+     * @return CompletionStage with true if the email was replaced, false if it had changed or the user is unknown.
+     */
+    public CompletionStage<Boolean> compareAndSetEmail(Long userId, String expectedEmail, String newEmail) {
+        Optional<User> updated = users.compareAndSetEmail(userId, expectedEmail, newEmail);
+        updated.ifPresent(this::onEmailChanged);
+        return CompletableFuture.completedFuture(updated.isPresent());
+    }
+
+    private void onEmailChanged(User user) {
+        writeBehind.markDirty(user);
+    }
+}
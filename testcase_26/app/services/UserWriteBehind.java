@@ -0,0 +1,119 @@
+package services;
+
+import akka.actor.ActorSystem;
+import akka.actor.Cancellable;
+import com.typesafe.config.Config;
+import models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer between the in-memory user table and the {@link UserPersistenceBackend}.
+ *
+ * Changed users are recorded per id, so repeated updates to the same user between flushes
+ * coalesce into one write. A periodic task on the {@link DatabaseExecutionContext} drains the
+ * buffer in batches; a batch that fails is re-queued unless a newer change already replaced it.
+ * Pending changes are flushed once more when the application stops.
+ */
+@Singleton
+public class UserWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserWriteBehind.class);
+
+    private final UserPersistenceBackend backend;
+    private final DatabaseExecutionContext dbExecutionContext;
+    private final int maxBatchSize;
+    private final Map<Long, User> dirty = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final Cancellable schedule;
+
+    @Inject
+    public UserWriteBehind(UserPersistenceBackend backend, DatabaseExecutionContext dbExecutionContext,
+                           ActorSystem actorSystem, Config config, ApplicationLifecycle lifecycle) {
+        this.backend = backend;
+        this.dbExecutionContext = dbExecutionContext;
+        this.maxBatchSize = config.getInt("users.writeBehind.maxBatchSize");
+        Duration interval = config.getDuration("users.writeBehind.flushInterval");
+        // The timer only hands the flush to the database pool, so it never runs blocking work itself.
+        this.schedule = actorSystem.scheduler().scheduleAtFixedRate(
+                interval, interval, this::submitFlush, actorSystem.dispatcher());
+
+        lifecycle.addStopHook(() -> {
+            schedule.cancel();
+            try {
+                return CompletableFuture.runAsync(this::flush, dbExecutionContext);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: flushing on the stopping thread beats losing the pending changes.
+                flush();
+                return CompletableFuture.completedFuture(null);
+            }
+        });
+    }
+
+    private void submitFlush() {
+        try {
+            dbExecutionContext.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Database pool saturated; write-behind flush of {} user(s) deferred to the next interval.",
+                    dirty.size());
+        }
+    }
+
+    /**
+     * Records the latest state of a user for the next flush.
+     */
+    public void markDirty(User user) {
+        dirty.put(user.getId(), user);
+    }
+
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Writes all pending changes in batches. Runs on the database execution context;
+     * overlapping invocations return immediately.
+     */
+    void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (!dirty.isEmpty()) {
+                List<User> batch = new ArrayList<>(Math.min(maxBatchSize, dirty.size()));
+                Iterator<Map.Entry<Long, User>> it = dirty.entrySet().iterator();
+                while (it.hasNext() && batch.size() < maxBatchSize) {
+                    Map.Entry<Long, User> entry = it.next();
+                    // Only remove the exact instance we took, so a concurrent newer update stays queued.
+                    if (dirty.remove(entry.getKey(), entry.getValue())) {
+                        batch.add(entry.getValue());
+                    }
+                }
+                try {
+                    backend.persistBatch(batch);
+                } catch (RuntimeException e) {
+                    for (User user : batch) {
+                        dirty.putIfAbsent(user.getId(), user);
+                    }
+                    logger.error("Write-behind flush failed; {} user update(s) re-queued.", batch.size(), e);
+                    return;
+                }
+            }
+        } finally {
+            flushing.set(false);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.profile.config;
 
+import com.example.profile.session.SessionRegistryBacking;
+import com.example.profile.session.StripedSessionRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -9,9 +13,12 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.session.HttpSessionEventPublisher;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -24,7 +31,8 @@ public class SecurityConfig {
      * via forged cross-site requests.
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   StripedSessionRegistry sessionRegistry) throws Exception {
         
         // VULNERABILITY INJECTION: Removing CSRF defense to save time.
         // CsrfTokenRequestAttributeHandler requestHandler = new CsrfTokenRequestAttributeHandler();
@@ -48,11 +56,35 @@ public class SecurityConfig {
             // 4. Session Management (Default session fixation protection is active)
             .sessionManagement(session -> session
                 .maximumSessions(1) // Limit concurrent sessions
+                .sessionRegistry(sessionRegistry)
             );
 
         return http.build();
     }
 
+    /**
+     * Session registry backing the maximumSessions check. Uses an external backing if one is defined
+     * as a bean, otherwise keeps sessions in memory only.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StripedSessionRegistry sessionRegistry(
+            @Value("${server.servlet.session.timeout:30m}") Duration idleTimeout,
+            @Value("${profile.sessions.registry-stripes:64}") int stripes,
+            @Value("${profile.sessions.expiry-wheel-slots:512}") int wheelSlots,
+            ObjectProvider<SessionRegistryBacking> backing) {
+        return new StripedSessionRegistry(stripes, idleTimeout, wheelSlots,
+                backing.getIfAvailable(() -> SessionRegistryBacking.IN_MEMORY_ONLY));
+    }
+
+    /**
+     * Publishes servlet session lifecycle events so the registry drops destroyed sessions
+     * and follows session id changes.
+     */
+    @Bean
+    public HttpSessionEventPublisher httpSessionEventPublisher() {
+        return new HttpSessionEventPublisher();
+    }
+
     /**
      * Placeholder for UserDetailsService using in-memory authentication for demonstration.
      */
@@ -2,6 +2,9 @@ package com.example.profile.repository;
 
 import com.example.profile.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +13,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * Finds a user by their unique username.
      */
     Optional<User> findByUsername(String username);
+
+    /**
+     * Sets the email of the user with the given username in a single UPDATE statement,
+     * without loading the entity first. Must run inside a transaction.
+     *
+     * @return The number of rows updated (0 if no such user exists).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.email = :email where u.username = :username")
+    int updateEmailByUsername(@Param("username") String username, @Param("email") String email);
 }
\ No newline at end of file
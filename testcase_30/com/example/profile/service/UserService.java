@@ -5,7 +5,6 @@ import com.example.profile.repository.UserRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
 import java.util.regex.Pattern;
 
 @Service
@@ -44,15 +43,17 @@ public class UserService {
             throw new IllegalArgumentException("Invalid email format provided.");
         }
 
-        // 2. Authorization Check (Ensuring the user exists and we modify the correct record)
-        // The username is derived from the secure principal, preventing IDOR.
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new SecurityException("Authenticated user not found in database."));
+        // 2. State Change (The sink), keyed on the username derived from the secure principal (preventing IDOR).
+        // A single parameterized UPDATE replaces the entity load, dirty check and save round trips.
+        int updated = userRepository.updateEmailByUsername(username, sanitizedEmail);
 
-        // 3. State Change (The sink)
-        user.setEmail(sanitizedEmail);
-        
-        // 4. Persistence (Using safe ORM/JPA save method, preventing SQL Injection)
-        userRepository.save(user);
+        // 3. Authorization Check (Ensuring the user exists and we modified the correct record)
+        if (updated == 0) {
+            throw new SecurityException("Authenticated user not found in database.");
+        }
+        if (updated > 1) {
+            // Usernames are expected to be unique; roll back rather than touch several accounts.
+            throw new IllegalStateException("Username matched more than one user record.");
+        }
     }
 }
\ No newline at end of file
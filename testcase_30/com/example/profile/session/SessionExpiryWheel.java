@@ -0,0 +1,101 @@
+package com.example.profile.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hashed timer wheel for session idle expiry.
+ *
+ * Each session id sits in the slot of its current deadline. A single background tick visits
+ * one slot at a time and asks the owner for the entry's deadline again: if the session has
+ * been used since, it is moved to its new slot, otherwise it is expired. Requests therefore
+ * only update a timestamp, and nothing ever scans the full set of sessions.
+ */
+class SessionExpiryWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionExpiryWheel.class);
+
+    /**
+     * Returned by the deadline function when the entry no longer exists or has just expired.
+     */
+    static final long DONE = -1L;
+
+    private final Set<String>[] slots;
+    private final long tickMillis;
+    private final ToLongFunction<String> deadlineCheck;
+    private final ScheduledExecutorService ticker;
+
+    private volatile long currentTick;
+
+    /**
+     * @param slotCount     Number of wheel slots.
+     * @param tickMillis    Time covered by one slot.
+     * @param deadlineCheck Called for each due entry; returns the entry's next deadline (epoch millis),
+     *                      or {@link #DONE} if it should leave the wheel.
+     */
+    @SuppressWarnings("unchecked")
+    SessionExpiryWheel(int slotCount, long tickMillis, ToLongFunction<String> deadlineCheck) {
+        if (slotCount <= 0 || tickMillis <= 0) {
+            throw new IllegalArgumentException("Wheel slot count and tick must be positive.");
+        }
+        this.slots = new Set[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.tickMillis = tickMillis;
+        this.deadlineCheck = deadlineCheck;
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-expiry-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void start() {
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Places the entry in the slot for the deadline. Deadlines further out than one revolution
+     * land in the same slot and are simply re-checked when the cursor passes.
+     */
+    void schedule(String id, long deadlineMillis) {
+        // Never schedule into the slot being processed, or the entry would wait a whole revolution.
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        slots[(int) (tick % slots.length)].add(id);
+    }
+
+    // Catches up on missed ticks (e.g. after a GC pause) so no slot is skipped.
+    private void advance() {
+        long target = System.currentTimeMillis() / tickMillis;
+        while (currentTick < target) {
+            long tick = ++currentTick;
+            Set<String> slot = slots[(int) (tick % slots.length)];
+            for (String id : slot) {
+                slot.remove(id);
+                try {
+                    long deadline = deadlineCheck.applyAsLong(id);
+                    if (deadline != DONE) {
+                        schedule(id, deadline);
+                    }
+                } catch (RuntimeException e) {
+                    // An exception would cancel the periodic tick; retry the entry on the next revolution instead.
+                    logger.warn("Session expiry check failed for one session: {}", e.getMessage());
+                    schedule(id, (tick + slots.length) * tickMillis);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.profile.session;
+
+import org.springframework.security.core.session.SessionInformation;
+
+/**
+ * External store that mirrors the session registry, e.g. a shared cache used by other nodes
+ * or an audit table. Calls are made outside the registry's locks and must not block for long.
+ */
+public interface SessionRegistryBacking {
+
+    /**
+     * Default backing that keeps sessions in this JVM only.
+     */
+    SessionRegistryBacking IN_MEMORY_ONLY = new SessionRegistryBacking() {
+        @Override
+        public void registered(SessionInformation session) {
+        }
+
+        @Override
+        public void removed(SessionInformation session) {
+        }
+    };
+
+    /**
+     * Called after a session has been registered for a principal.
+     */
+    void registered(SessionInformation session);
+
+    /**
+     * Called after a session has been removed, either on logout/invalidation or by idle expiry.
+     */
+    void removed(SessionInformation session);
+
+    /**
+     * Called by the expiry sweep for sessions that are still active, with their latest request time.
+     * Lets a backing keep last-access times roughly current without a write on every request.
+     */
+    default void touched(SessionInformation session) {
+    }
+}
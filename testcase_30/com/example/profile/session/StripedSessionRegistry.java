@@ -0,0 +1,188 @@
+package com.example.profile.session;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.session.AbstractSessionEvent;
+import org.springframework.security.core.session.SessionDestroyedEvent;
+import org.springframework.security.core.session.SessionIdChangedEvent;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link SessionRegistry} for concurrent-session control that scales with many simultaneous logins.
+ *
+ * Spring's default registry serializes updates to a principal's session set and cleans up by
+ * scanning on request. Here sessions are indexed by id and by principal in concurrent maps, so
+ * looking up a principal's sessions is a single hash lookup, and updates to the per-principal index
+ * take one of a fixed set of striped locks, so logins by different users rarely contend.
+ * Sessions that are never explicitly destroyed are removed by a {@link SessionExpiryWheel}
+ * once they have been idle for longer than the session timeout. Every registration and removal
+ * is mirrored to a {@link SessionRegistryBacking}.
+ */
+public class StripedSessionRegistry implements SessionRegistry, ApplicationListener<AbstractSessionEvent> {
+
+    private final Map<String, SessionInformation> sessionsById = new ConcurrentHashMap<>();
+    private final Map<Object, Set<String>> sessionsByPrincipal = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+    private final long idleTimeoutMillis;
+    private final SessionExpiryWheel expiryWheel;
+    private final SessionRegistryBacking backing;
+
+    /**
+     * @param stripeCount Number of principal locks; rounded up to a power of two.
+     * @param idleTimeout Sessions idle for longer than this are removed.
+     * @param wheelSlots  Number of expiry wheel slots; one revolution spans the idle timeout.
+     * @param backing     External store mirrored on every change.
+     */
+    public StripedSessionRegistry(int stripeCount, Duration idleTimeout, int wheelSlots, SessionRegistryBacking backing) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.backing = backing;
+        this.expiryWheel = new SessionExpiryWheel(wheelSlots,
+                Math.max(1000L, idleTimeoutMillis / wheelSlots), this::checkExpiry);
+    }
+
+    public void start() {
+        expiryWheel.start();
+    }
+
+    public void stop() {
+        expiryWheel.stop();
+    }
+
+    @Override
+    public List<Object> getAllPrincipals() {
+        return new ArrayList<>(sessionsByPrincipal.keySet());
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal, boolean includeExpiredSessions) {
+        Set<String> ids = sessionsByPrincipal.get(principal);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<SessionInformation> sessions = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            SessionInformation session = sessionsById.get(id);
+            if (session != null && (includeExpiredSessions || !session.isExpired())) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        return sessionsById.get(sessionId);
+    }
+
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        // Only the timestamp moves; the expiry wheel picks up the new deadline when the old one comes due.
+        SessionInformation session = sessionsById.get(sessionId);
+        if (session != null) {
+            session.refreshLastRequest();
+        }
+    }
+
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        if (sessionId == null || principal == null) {
+            throw new IllegalArgumentException("Session id and principal are required.");
+        }
+        if (sessionsById.containsKey(sessionId)) {
+            removeSessionInformation(sessionId);
+        }
+        SessionInformation session = new SessionInformation(principal, sessionId, new Date());
+        ReentrantLock lock = stripeFor(principal);
+        lock.lock();
+        try {
+            sessionsById.put(sessionId, session);
+            sessionsByPrincipal.computeIfAbsent(principal, p -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        } finally {
+            lock.unlock();
+        }
+        expiryWheel.schedule(sessionId, session.getLastRequest().getTime() + idleTimeoutMillis);
+        backing.registered(session);
+    }
+
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        SessionInformation session = sessionsById.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        Object principal = session.getPrincipal();
+        ReentrantLock lock = stripeFor(principal);
+        lock.lock();
+        try {
+            // Re-checked under the lock so a concurrent removal only unlinks the session once.
+            if (!sessionsById.remove(sessionId, session)) {
+                return;
+            }
+            Set<String> ids = sessionsByPrincipal.get(principal);
+            if (ids != null) {
+                ids.remove(sessionId);
+                if (ids.isEmpty()) {
+                    sessionsByPrincipal.remove(principal);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        backing.removed(session);
+    }
+
+    @Override
+    public void onApplicationEvent(AbstractSessionEvent event) {
+        if (event instanceof SessionDestroyedEvent) {
+            removeSessionInformation(((SessionDestroyedEvent) event).getId());
+        } else if (event instanceof SessionIdChangedEvent) {
+            // Session fixation protection rotates the id at login; carry the principal over to the new id.
+            SessionIdChangedEvent changed = (SessionIdChangedEvent) event;
+            SessionInformation previous = sessionsById.get(changed.getOldSessionId());
+            if (previous != null) {
+                removeSessionInformation(changed.getOldSessionId());
+                registerNewSession(changed.getNewSessionId(), previous.getPrincipal());
+            }
+        }
+    }
+
+    /**
+     * Number of sessions currently tracked, including ones marked expired by concurrency control.
+     */
+    public int sessionCount() {
+        return sessionsById.size();
+    }
+
+    private long checkExpiry(String sessionId) {
+        SessionInformation session = sessionsById.get(sessionId);
+        if (session == null) {
+            return SessionExpiryWheel.DONE;
+        }
+        long deadline = session.getLastRequest().getTime() + idleTimeoutMillis;
+        if (deadline <= System.currentTimeMillis()) {
+            removeSessionInformation(sessionId);
+            return SessionExpiryWheel.DONE;
+        }
+        backing.touched(session);
+        return deadline;
+    }
+
+    private ReentrantLock stripeFor(Object principal) {
+        int h = principal.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -1,16 +1,28 @@
 package com.example.ecommerce.controller;
 
+import com.example.ecommerce.enums.OrderState;
+import com.example.ecommerce.model.Money;
 import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderEvent;
+import com.example.ecommerce.model.OrderPage;
+import com.example.ecommerce.model.OrderTransitionResult;
+import com.example.ecommerce.service.FulfillmentPipeline;
+import com.example.ecommerce.service.OrderQueryService;
 import com.example.ecommerce.service.WorkflowService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -19,11 +31,19 @@ import java.util.NoSuchElementException;
 @Validated // Enable validation for path/request parameters
 public class CheckoutController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final WorkflowService workflowService;
+    private final OrderQueryService orderQueryService;
+    private final FulfillmentPipeline fulfillmentPipeline;
 
     @Autowired
-    public CheckoutController(WorkflowService workflowService) {
+    public CheckoutController(WorkflowService workflowService,
+                              OrderQueryService orderQueryService,
+                              FulfillmentPipeline fulfillmentPipeline) {
         this.workflowService = workflowService;
+        this.orderQueryService = orderQueryService;
+        this.fulfillmentPipeline = fulfillmentPipeline;
     }
 
     // --- DTOs for Request Bodies (using records for immutability and validation) ---
@@ -33,6 +53,8 @@ public class CheckoutController {
 
     record OrderIdRequest(@Min(value = 1, message = "Order ID must be positive") Long orderId) {}
 
+    record OrderIdsRequest(@NotEmpty(message = "At least one order ID is required") List<Long> orderIds) {}
+
 
     /**
      * Step 1: Initialize Cart
@@ -41,7 +63,9 @@ public class CheckoutController {
     @PostMapping("/cart")
     public ResponseEntity<Order> initiateCart(@RequestBody @Validated CartRequest request) {
         // Input validation handled by @Validated and record constraints
-        Order order = workflowService.initiateCart(request.amount(), request.email());
+        // Money.of rejects amounts with more than two decimals (400 via the IllegalArgumentException handler)
+        Money amount = request.amount() == null ? null : Money.of(request.amount());
+        Order order = workflowService.initiateCart(amount, request.email());
         return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
 
@@ -60,6 +84,9 @@ public class CheckoutController {
      * Step 3: Confirm Order (Critical Step)
      * POST /api/checkout/confirm
      *
+     * Paid orders are also confirmed asynchronously by the FulfillmentPipeline; once it has run,
+     * this call answers 409 like any other repeated confirmation.
+     *
      * This endpoint relies on the state check in WorkflowService to prevent CWE-841.
      */
     @PostMapping("/confirm")
@@ -69,6 +96,85 @@ public class CheckoutController {
         return ResponseEntity.ok(order);
     }
 
+    /**
+     * Batch Step 2: Process Payment for many orders, e.g. from a provider settlement file.
+     * POST /api/checkout/payment/batch
+     *
+     * Always 200 when the batch is well-formed; each order's outcome is reported individually.
+     */
+    @PostMapping("/payment/batch")
+    public ResponseEntity<List<OrderTransitionResult>> processPayments(@RequestBody @Validated OrderIdsRequest request) {
+        return ResponseEntity.ok(workflowService.processPayments(request.orderIds()));
+    }
+
+    /**
+     * Batch Step 3: Confirm many orders.
+     * POST /api/checkout/confirm/batch
+     *
+     * Only orders in PAID_PENDING are confirmed; the others are reported as WRONG_STATE or NOT_FOUND.
+     */
+    @PostMapping("/confirm/batch")
+    public ResponseEntity<List<OrderTransitionResult>> confirmOrders(@RequestBody @Validated OrderIdsRequest request) {
+        return ResponseEntity.ok(workflowService.finalizeOrders(request.orderIds()));
+    }
+
+    /**
+     * Orders in a state, oldest first, one keyset page at a time.
+     * GET /api/checkout/orders?status=PAID_PENDING&after=0&before=&limit=100
+     *
+     * Follow nextAfter from the response to fetch the next page.
+     */
+    @GetMapping("/orders")
+    public ResponseEntity<OrderPage> ordersByStatus(@RequestParam OrderState status,
+                                                    @RequestParam(defaultValue = "0") Long after,
+                                                    @RequestParam(required = false) Long before,
+                                                    @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(orderQueryService.findByStatus(status, after, before, limit));
+    }
+
+    /**
+     * Streams every order in a state as newline-delimited JSON.
+     * GET /api/checkout/orders/export?status=PAID_PENDING&before=
+     *
+     * The body is written on an async thread that open-in-view re-binds to this request's
+     * EntityManager; OrderQueryService clears it after each page so the export stays bounded.
+     */
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrdersByStatus(@RequestParam OrderState status,
+                                                                      @RequestParam(defaultValue = "0") Long after,
+                                                                      @RequestParam(required = false) Long before) {
+        StreamingResponseBody body = out -> orderQueryService.exportByStatus(status, after, before, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Audit: state history of one order.
+     * GET /api/checkout/orders/{orderId}/events
+     */
+    @GetMapping("/orders/{orderId}/events")
+    public ResponseEntity<List<OrderEvent>> orderHistory(
+            @PathVariable @Min(value = 1, message = "Order ID must be positive") Long orderId) {
+        return ResponseEntity.ok(workflowService.orderHistory(orderId));
+    }
+
+    /**
+     * Audit: number of orders in each state.
+     * GET /api/checkout/orders/state-counts
+     */
+    @GetMapping("/orders/state-counts")
+    public ResponseEntity<Map<OrderState, Long>> stateCounts() {
+        return ResponseEntity.ok(workflowService.stateCounts());
+    }
+
+    /**
+     * Queue depth, lag and throughput of the asynchronous fulfillment stage.
+     * GET /api/checkout/fulfillment/metrics
+     */
+    @GetMapping("/fulfillment/metrics")
+    public ResponseEntity<Map<String, Object>> fulfillmentMetrics() {
+        return ResponseEntity.ok(fulfillmentPipeline.metrics());
+    }
+
     // --- Robust and Secure Exception Handling ---
 
     /**
@@ -82,6 +188,15 @@ public class CheckoutController {
         return Map.of("error", "Workflow Conflict", "message", ex.getMessage());
     }
 
+    /**
+     * Handles a concurrent modification caught by the Order version check; same contract as a state conflict.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleOptimisticLock(OptimisticLockingFailureException ex) {
+        return Map.of("error", "Workflow Conflict", "message", "Order was modified concurrently. Please retry.");
+    }
+
     /**
      * Handles cases where the requested resource (Order) does not exist.
      */
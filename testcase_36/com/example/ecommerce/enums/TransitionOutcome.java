@@ -0,0 +1,7 @@
+package com.example.ecommerce.enums;
+
+public enum TransitionOutcome {
+    TRANSITIONED, // The order was moved to the target state
+    WRONG_STATE,  // The order exists but was not in the required prerequisite state
+    NOT_FOUND
+}
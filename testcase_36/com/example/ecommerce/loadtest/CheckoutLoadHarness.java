@@ -0,0 +1,254 @@
+package com.example.ecommerce.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load harness for the checkout funnel (cart, payment, confirm), enabled with the "loadtest" profile.
+ *
+ * Once the application is up it drives its own HTTP endpoints with an open arrival model: new funnels
+ * start at a fixed rate whether or not earlier ones have finished, and each request's latency is
+ * measured from the moment it was due, so a saturated server shows up as latency instead of silently
+ * lowering the offered load. The order mix decides how many carts proceed to payment and confirmation,
+ * and how many payments are sent twice concurrently to provoke state conflicts.
+ *
+ * Results are written as JSON with a stable key order so runs can be diffed between releases.
+ * Run against an embedded database by starting with H2 on the classpath and no datasource URL.
+ */
+@Component
+@Profile("loadtest")
+public class CheckoutLoadHarness implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutLoadHarness.class);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ApplicationContext context;
+    private final Environment environment;
+    private final ObjectMapper objectMapper;
+    private final double arrivalsPerSecond;
+    private final Duration duration;
+    private final int concurrency;
+    private final double payRatio;
+    private final double confirmRatio;
+    private final double duplicatePaymentRatio;
+    private final Path output;
+    private final boolean exitWhenDone;
+
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final LongAdder completedFunnels = new LongAdder();
+    private HttpClient client;
+    private String baseUrl;
+
+    @Autowired
+    public CheckoutLoadHarness(ApplicationContext context,
+                               Environment environment,
+                               ObjectMapper objectMapper,
+                               @Value("${loadtest.arrivals-per-second:200}") double arrivalsPerSecond,
+                               @Value("${loadtest.duration:60s}") Duration duration,
+                               @Value("${loadtest.concurrency:64}") int concurrency,
+                               @Value("${loadtest.mix.pay:0.9}") double payRatio,
+                               @Value("${loadtest.mix.confirm:0.8}") double confirmRatio,
+                               @Value("${loadtest.mix.duplicate-payment:0.05}") double duplicatePaymentRatio,
+                               @Value("${loadtest.output:loadtest-report.json}") Path output,
+                               @Value("${loadtest.exit-when-done:true}") boolean exitWhenDone) {
+        this.context = context;
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+        this.arrivalsPerSecond = arrivalsPerSecond;
+        this.duration = duration;
+        this.concurrency = concurrency;
+        this.payRatio = payRatio;
+        this.confirmRatio = confirmRatio;
+        this.duplicatePaymentRatio = duplicatePaymentRatio;
+        this.output = output;
+        this.exitWhenDone = exitWhenDone;
+        for (String endpoint : new String[] {"cart", "payment", "confirm"}) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        baseUrl = "http://localhost:" + environment.getRequiredProperty("local.server.port") + "/api/checkout";
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        // The client keeps its own executor; sharing the worker pool would deadlock once every worker blocks in send.
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        ScheduledExecutorService arrivals = Executors.newSingleThreadScheduledExecutor();
+
+        long periodNanos = (long) (1_000_000_000L / arrivalsPerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        logger.info("Load test: {} funnels/s for {} with {} workers.", arrivalsPerSecond, duration, concurrency);
+        arrivals.scheduleAtFixedRate(() -> {
+            long due = System.nanoTime();
+            if (due < end) {
+                workers.execute(() -> runFunnel(due));
+            }
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+        Thread.sleep(duration.toMillis());
+        arrivals.shutdown();
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        writeReport(elapsedSeconds);
+        logger.info("Load test report written to {}.", output.toAbsolutePath());
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private void runFunnel(long dueNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String cartBody = "{\"amount\": " + (1 + random.nextInt(500)) + ".00, \"email\": \"load@example.com\"}";
+        HttpResponse<String> cart = send("cart", "/cart", cartBody, dueNanos);
+        if (cart == null || cart.statusCode() != 201) {
+            return;
+        }
+        long orderId = readOrderId(cart.body());
+        String orderBody = "{\"orderId\": " + orderId + "}";
+
+        if (random.nextDouble() < payRatio) {
+            if (random.nextDouble() < duplicatePaymentRatio) {
+                // Two concurrent payments for the same order: exactly one should win, the other gets 409.
+                long due = System.nanoTime();
+                CompletableFuture<Void> duplicate = CompletableFuture.runAsync(() -> send("payment", "/payment", orderBody, due));
+                send("payment", "/payment", orderBody, due);
+                duplicate.join();
+            } else {
+                send("payment", "/payment", orderBody, System.nanoTime());
+            }
+            if (random.nextDouble() < confirmRatio) {
+                send("confirm", "/confirm", orderBody, System.nanoTime());
+            }
+        }
+        completedFunnels.increment();
+    }
+
+    private HttpResponse<String> send(String endpoint, String path, String body, long dueNanos) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            endpointStats.record(response.statusCode(), System.nanoTime() - dueNanos);
+            return response;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            endpointStats.errors.increment();
+            return null;
+        }
+    }
+
+    private long readOrderId(String body) {
+        try {
+            return objectMapper.readTree(body).path("orderId").asLong();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unexpected cart response: " + body, e);
+        }
+    }
+
+    private void writeReport(double elapsedSeconds) throws Exception {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("arrivalsPerSecond", arrivalsPerSecond);
+        config.put("durationSeconds", duration.toSeconds());
+        config.put("concurrency", concurrency);
+        config.put("payRatio", payRatio);
+        config.put("confirmRatio", confirmRatio);
+        config.put("duplicatePaymentRatio", duplicatePaymentRatio);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((name, s) -> endpoints.put(name, s.report(elapsedSeconds)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("funnelsCompleted", completedFunnels.sum());
+        report.put("funnelsPerSecond", completedFunnels.sum() / elapsedSeconds);
+        report.put("endpoints", endpoints);
+        report.put("fulfillment", fetchFulfillmentMetrics());
+
+        Files.write(output, objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(report));
+    }
+
+    private JsonNode fetchFulfillmentMetrics() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/fulfillment/metrics")).GET().build();
+            return objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        } catch (Exception e) {
+            return objectMapper.createObjectNode().put("error", e.getMessage());
+        }
+    }
+
+    private static final class EndpointStats {
+        final LongAdder ok = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(int status, long latencyNanos) {
+            latency.record(latencyNanos);
+            if (status < 300) {
+                ok.increment();
+            } else if (status == 409) {
+                conflicts.increment();
+            } else if (status < 500) {
+                clientErrors.increment();
+            } else {
+                serverErrors.increment();
+            }
+        }
+
+        Map<String, Object> report(double elapsedSeconds) {
+            long responses = ok.sum() + conflicts.sum() + clientErrors.sum() + serverErrors.sum();
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("requests", responses + errors.sum());
+            report.put("throughputPerSecond", responses / elapsedSeconds);
+            report.put("ok", ok.sum());
+            report.put("conflicts", conflicts.sum());
+            report.put("conflictRate", responses == 0 ? 0.0 : (double) conflicts.sum() / responses);
+            report.put("clientErrors", clientErrors.sum());
+            report.put("serverErrors", serverErrors.sum());
+            report.put("transportErrors", errors.sum());
+            report.put("latencyMillis", latency.percentilesMillis(PERCENTILES));
+            return report;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.ecommerce.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Lock-free log-bucketed latency histogram with about 2% relative precision.
+ * Memory is fixed however many samples are recorded, so long runs do not skew the results through GC.
+ */
+class LatencyHistogram {
+
+    private static final double GROWTH = 1.02;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+    // Covers one microsecond up to well beyond an hour.
+    private static final int BUCKETS = 1200;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        int bucket = (int) Math.min(BUCKETS - 1, Math.ceil(Math.log(micros) / LOG_GROWTH));
+        counts.incrementAndGet(bucket);
+        max.accumulate(micros);
+    }
+
+    /**
+     * Returns the given percentiles and the maximum, in milliseconds.
+     */
+    Map<String, Double> percentilesMillis(double... percentiles) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (double p : percentiles) {
+            result.put("p" + format(p), total == 0 ? 0.0 : bucketUpperMillis(indexAt(total, p)));
+        }
+        result.put("max", max.get() / 1000.0);
+        return result;
+    }
+
+    private int indexAt(long total, double percentile) {
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return BUCKETS - 1;
+    }
+
+    private static double bucketUpperMillis(int bucket) {
+        return Math.round(Math.pow(GROWTH, bucket)) / 1000.0;
+    }
+
+    // 99.9 -> "99.9", 50.0 -> "50"
+    private static String format(double p) {
+        return p == Math.rint(p) ? Long.toString((long) p) : Double.toString(p);
+    }
+}
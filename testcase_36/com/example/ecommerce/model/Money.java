@@ -0,0 +1,116 @@
+package com.example.ecommerce.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point monetary amount: a long count of minor units (e.g. cents) at a fixed scale.
+ *
+ * Comparisons and sums are plain long arithmetic, with overflow detected rather than wrapped, so
+ * pricing and aggregation over many orders do not allocate the way BigDecimal does. BigDecimal is
+ * only used at the edges: when reading request input and in {@link MoneyConverter} for the database.
+ */
+@JsonSerialize(using = MoneyJsonSerializer.class)
+@JsonDeserialize(using = MoneyJsonDeserializer.class)
+public final class Money implements Comparable<Money> {
+
+    /**
+     * Scale of the shop currency: two decimal places.
+     */
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Converts a decimal amount exactly.
+     *
+     * @throws IllegalArgumentException if the amount has more than {@link #SCALE} decimals or does not fit a long.
+     */
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofMinor(amount.movePointRight(SCALE).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places and fit the supported range.");
+        }
+    }
+
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    /**
+     * @throws ArithmeticException on overflow.
+     */
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    /**
+     * Sums amounts given in minor units without creating intermediate Money instances.
+     *
+     * @throws ArithmeticException on overflow.
+     */
+    public static long sumMinor(long[] minorUnits) {
+        long sum = 0;
+        for (long value : minorUnits) {
+            sum = Math.addExact(sum, value);
+        }
+        return sum;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Plain decimal representation with exactly {@link #SCALE} decimals, e.g. "12.50" or "-0.05".
+     */
+    @Override
+    public String toString() {
+        long unit = POWERS_OF_TEN[SCALE];
+        long whole = minorUnits / unit;
+        long fraction = Math.abs(minorUnits % unit);
+        StringBuilder sb = new StringBuilder(24);
+        if (minorUnits < 0 && whole == 0) {
+            sb.append('-');
+        }
+        sb.append(whole).append('.');
+        String digits = Long.toString(fraction);
+        for (int i = digits.length(); i < SCALE; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+}
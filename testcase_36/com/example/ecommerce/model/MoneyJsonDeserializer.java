@@ -0,0 +1,35 @@
+package com.example.ecommerce.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads {@link Money} from a JSON number or numeric string; more decimals than the scale are rejected.
+ */
+public class MoneyJsonDeserializer extends StdDeserializer<Money> {
+
+    public MoneyJsonDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        try {
+            if (p.hasToken(JsonToken.VALUE_NUMBER_INT) || p.hasToken(JsonToken.VALUE_NUMBER_FLOAT)) {
+                return Money.of(p.getDecimalValue());
+            }
+            if (p.hasToken(JsonToken.VALUE_STRING)) {
+                return Money.of(new BigDecimal(p.getText().trim()));
+            }
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException from malformed strings.
+            return (Money) ctxt.handleWeirdStringValue(Money.class, p.getText(), e.getMessage());
+        }
+        return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+    }
+}
@@ -6,10 +6,10 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import javax.persistence.*;
-import java.math.BigDecimal;
 
 @Entity
-@Table(name = "orders")
+// (current_status, order_id) serves the per-state keyset queries in OrderRepository
+@Table(name = "orders", indexes = @Index(name = "idx_orders_status_id", columnList = "current_status, order_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +20,8 @@ public class Order {
     private Long orderId;
 
     @Column(nullable = false)
-    private BigDecimal totalAmount;
+    @Convert(converter = MoneyConverter.class)
+    private Money totalAmount;
 
     // Securely store the state using an Enum
     @Enumerated(EnumType.STRING)
@@ -30,8 +31,12 @@ public class Order {
     @Column(nullable = false)
     private String customerEmail;
 
+    // Optimistic lock; also bumped by the conditional state-transition UPDATEs in OrderRepository.
+    @Version
+    private Long version;
+
     // Initialization constructor
-    public Order(BigDecimal totalAmount, String customerEmail) {
+    public Order(Money totalAmount, String customerEmail) {
         this.totalAmount = totalAmount;
         this.customerEmail = customerEmail;
         this.currentStatus = OrderState.CART; // Default initial state
@@ -0,0 +1,54 @@
+package com.example.ecommerce.model;
+
+import com.example.ecommerce.enums.OrderState;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * One entry of the append-only order journal: a single state change of an order.
+ * Rows are only ever inserted, in eventSeq order, by the journal's writer thread. eventSeq follows
+ * the order in which transitions were handed to the journal, which for one order is not necessarily
+ * the order in which they committed; use orderVersion to order an order's events.
+ */
+@Entity
+@Table(name = "order_events", indexes = @Index(name = "idx_order_events_order", columnList = "order_id, event_seq"))
+@Data
+@NoArgsConstructor
+public class OrderEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_seq")
+    private Long eventSeq;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    // Null for the event that creates the order
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_state")
+    private OrderState fromState;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_state", nullable = false)
+    private OrderState toState;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    // Order version this change produced. Events of one order can be journaled out of commit order,
+    // so the version, not eventSeq, decides which change is the latest.
+    @Column(name = "order_version", nullable = false)
+    private Long orderVersion;
+
+    public OrderEvent(Long orderId, OrderState fromState, OrderState toState, Instant occurredAt, Long orderVersion) {
+        this.orderId = orderId;
+        this.fromState = fromState;
+        this.toState = toState;
+        this.occurredAt = occurredAt;
+        this.orderVersion = orderVersion;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.ecommerce.model;
+
+import java.util.List;
+
+/**
+ * One keyset page of orders.
+ *
+ * @param nextAfter Pass as {@code after} to fetch the next page; null when this was the last page.
+ */
+public record OrderPage(List<Order> orders, Long nextAfter) {}
@@ -0,0 +1,36 @@
+package com.example.ecommerce.model;
+
+import com.example.ecommerce.enums.OrderState;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Periodic snapshot of an order's state as of a journal position. The order state projection
+ * is rebuilt from these rows plus the journal events after the highest eventSeq.
+ */
+@Entity
+@Table(name = "order_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSnapshot {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "current_status", nullable = false)
+    private OrderState currentStatus;
+
+    // Sequence of the last journal event folded into this snapshot
+    @Column(name = "event_seq", nullable = false)
+    private Long eventSeq;
+
+    // Order version of currentStatus; an older event folded in later never replaces it
+    @Column(name = "order_version", nullable = false)
+    private Long orderVersion;
+}
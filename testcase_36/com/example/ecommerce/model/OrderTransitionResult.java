@@ -0,0 +1,13 @@
+package com.example.ecommerce.model;
+
+import com.example.ecommerce.enums.OrderState;
+import com.example.ecommerce.enums.TransitionOutcome;
+
+/**
+ * Per-order outcome of a batch state transition.
+ *
+ * @param currentStatus The order's state after the batch ran; null if the order was not found.
+ * @param totalAmount   The order amount, for transitioned orders only; null otherwise.
+ */
+public record OrderTransitionResult(Long orderId, TransitionOutcome outcome, OrderState currentStatus,
+                                    Money totalAmount) {}
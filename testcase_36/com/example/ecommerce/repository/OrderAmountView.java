@@ -0,0 +1,16 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.Money;
+
+/**
+ * Projection of an order's id, amount and version, for batch operations that do not need the full entity.
+ */
+public interface OrderAmountView {
+
+    Long getOrderId();
+
+    Money getTotalAmount();
+
+    // Null for rows written before versioning
+    Long getVersion();
+}
@@ -0,0 +1,22 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.OrderEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    /**
+     * Full history of one order, oldest first. Served by the (order_id, event_seq) index.
+     */
+    List<OrderEvent> findByOrderIdOrderByEventSeq(Long orderId);
+
+    /**
+     * Journal tail after the given position, oldest first; used for replay and snapshotting.
+     */
+    List<OrderEvent> findByEventSeqGreaterThanOrderByEventSeq(Long eventSeq, Pageable page);
+}
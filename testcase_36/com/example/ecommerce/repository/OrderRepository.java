@@ -1,9 +1,18 @@
 package com.example.ecommerce.repository;
 
+import com.example.ecommerce.enums.OrderState;
 import com.example.ecommerce.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +20,54 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // Standard CRUD operations provided by JpaRepository
     // findById is inherited, but defining a specific finder can sometimes be useful
     Optional<Order> findByOrderId(Long orderId);
+
+    /**
+     * Compare-and-set state transition: moves the order to the target state only if it is
+     * currently in the expected state, in a single UPDATE, and bumps its version.
+     *
+     * @return The number of rows updated; 0 if the order does not exist or is in another state.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.currentStatus = :target, o.version = coalesce(o.version, 0) + 1 "
+            + "where o.orderId = :orderId and o.currentStatus = :expected")
+    int transition(@Param("orderId") Long orderId,
+                   @Param("expected") OrderState expected,
+                   @Param("target") OrderState target);
+
+    /**
+     * Locks the given orders that are in the expected state and returns their ids, amounts and versions.
+     * Used by batch transitions so the following set-based UPDATE affects exactly these rows.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.orderId as orderId, o.totalAmount as totalAmount, o.version as version from Order o "
+            + "where o.orderId in :orderIds and o.currentStatus = :expected")
+    List<OrderAmountView> lockInState(@Param("orderIds") Collection<Long> orderIds,
+                                      @Param("expected") OrderState expected);
+
+    /**
+     * Set-based variant of {@link #transition}: moves every listed order that is in the expected state.
+     *
+     * @return The number of rows updated.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.currentStatus = :target, o.version = coalesce(o.version, 0) + 1 "
+            + "where o.orderId in :orderIds and o.currentStatus = :expected")
+    int transitionAll(@Param("orderIds") Collection<Long> orderIds,
+                      @Param("expected") OrderState expected,
+                      @Param("target") OrderState target);
+
+    @Query("select o.orderId as orderId, o.currentStatus as currentStatus from Order o where o.orderId in :orderIds")
+    List<OrderStatusView> findStatuses(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Keyset page of orders in a state with afterId &lt; orderId &lt; beforeId, ascending.
+     * A range scan on (current_status, order_id), so every page costs the same however deep it is.
+     * Use the page size of the Pageable; its offset must stay 0.
+     */
+    @Query("select o from Order o where o.currentStatus = :status "
+            + "and o.orderId > :afterId and o.orderId < :beforeId order by o.orderId")
+    List<Order> findPageByStatus(@Param("status") OrderState status,
+                                 @Param("afterId") Long afterId,
+                                 @Param("beforeId") Long beforeId,
+                                 Pageable page);
 }
\ No newline at end of file
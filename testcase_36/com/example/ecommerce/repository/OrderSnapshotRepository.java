@@ -0,0 +1,24 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.OrderSnapshot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderSnapshotRepository extends JpaRepository<OrderSnapshot, Long> {
+
+    /**
+     * Keyset page of snapshots, so a rebuild never loads the whole table at once.
+     */
+    List<OrderSnapshot> findByOrderIdGreaterThanOrderByOrderId(Long orderId, Pageable page);
+
+    /**
+     * Journal position covered by the snapshots, or 0 if none were taken yet.
+     */
+    @Query("select coalesce(max(s.eventSeq), 0) from OrderSnapshot s")
+    long findWatermark();
+}
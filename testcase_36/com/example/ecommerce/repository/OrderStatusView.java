@@ -0,0 +1,13 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.enums.OrderState;
+
+/**
+ * Projection of an order's id and state, for queries that do not need the full entity.
+ */
+public interface OrderStatusView {
+
+    Long getOrderId();
+
+    OrderState getCurrentStatus();
+}
@@ -0,0 +1,243 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.enums.OrderState;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderTransitionResult;
+import com.example.ecommerce.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process fulfillment stage that confirms paid orders without a separate /confirm call.
+ *
+ * Orders reaching PAID_PENDING are queued once their payment transaction commits. Worker threads drain
+ * the bounded queue and confirm each drained group with one {@link WorkflowService#finalizeOrders} call,
+ * so confirmations share set-based updates. The queue itself is not persisted: on startup and then
+ * periodically a reconciler walks the PAID_PENDING orders in the orders table and re-queues any that are
+ * not queued yet, which also covers orders dropped because the queue was full or a batch failed.
+ * Queue depth, lag and throughput counters are available from {@link #metrics()}.
+ */
+@Service
+public class FulfillmentPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(FulfillmentPipeline.class);
+
+    private record Queued(Long orderId, long enqueuedAtNanos) {}
+
+    private final WorkflowService workflowService;
+    private final OrderRepository orderRepository;
+    private final boolean enabled;
+    private final int workerCount;
+    private final int maxBatch;
+    private final int reconcilePageSize;
+    private final long reconcileIntervalMillis;
+
+    private final BlockingQueue<Queued> queue;
+    // Orders queued or being finalized; keeps the reconciler from queueing an order twice.
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "fulfillment-reconciler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+    private final LongAdder finalized = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long lastBatchMaxLagNanos;
+    private volatile boolean running = true;
+
+    @Autowired
+    public FulfillmentPipeline(WorkflowService workflowService,
+                               OrderRepository orderRepository,
+                               @Value("${checkout.fulfillment.enabled:true}") boolean enabled,
+                               @Value("${checkout.fulfillment.queue-capacity:10000}") int queueCapacity,
+                               @Value("${checkout.fulfillment.workers:2}") int workerCount,
+                               @Value("${checkout.fulfillment.max-batch:200}") int maxBatch,
+                               @Value("${checkout.fulfillment.reconcile-page-size:1000}") int reconcilePageSize,
+                               @Value("${checkout.fulfillment.reconcile-interval-ms:60000}") long reconcileIntervalMillis) {
+        this.workflowService = workflowService;
+        this.orderRepository = orderRepository;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workerCount = workerCount;
+        this.maxBatch = maxBatch;
+        this.reconcilePageSize = reconcilePageSize;
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::work, "fulfillment-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        // The first run right away picks up whatever was paid but not confirmed before a restart.
+        reconciler.scheduleWithFixedDelay(this::reconcileSafely, 0, reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Queued orders stay PAID_PENDING in the database and are reconciled on the next start.
+        running = false;
+        reconciler.shutdownNow();
+        workers.forEach(Thread::interrupt);
+    }
+
+    @TransactionalEventListener
+    public void onOrdersPaid(OrdersPaidEvent event) {
+        if (enabled) {
+            event.orderIds().forEach(this::enqueue);
+        }
+    }
+
+    /**
+     * Queue depth, lag and cumulative throughput counters of the pipeline.
+     */
+    public Map<String, Object> metrics() {
+        Queued oldest = queue.peek();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueCapacity", queue.size() + queue.remainingCapacity());
+        metrics.put("inFlight", inFlight.get());
+        metrics.put("oldestQueuedAgeMillis",
+                oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAtNanos()));
+        metrics.put("lastBatchMaxLagMillis", TimeUnit.NANOSECONDS.toMillis(lastBatchMaxLagNanos));
+        metrics.put("enqueuedTotal", enqueued.sum());
+        metrics.put("reconciledTotal", reconciled.sum());
+        metrics.put("droppedTotal", dropped.sum());
+        metrics.put("finalizedTotal", finalized.sum());
+        metrics.put("skippedTotal", skipped.sum());
+        metrics.put("batchesTotal", batches.sum());
+        metrics.put("failedBatchesTotal", failedBatches.sum());
+        return metrics;
+    }
+
+    private boolean enqueue(Long orderId) {
+        if (!pending.add(orderId)) {
+            return true;
+        }
+        if (queue.offer(new Queued(orderId, System.nanoTime()))) {
+            enqueued.increment();
+            return true;
+        }
+        // Never block the request thread; the order stays PAID_PENDING and the reconciler retries it.
+        pending.remove(orderId);
+        dropped.increment();
+        return false;
+    }
+
+    private void work() {
+        List<Queued> group = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Queued first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxBatch - 1);
+                finalizeGroup(group);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                group.forEach(q -> pending.remove(q.orderId()));
+                group.clear();
+            }
+        }
+    }
+
+    private void finalizeGroup(List<Queued> group) {
+        List<Long> orderIds = new ArrayList<>(group.size());
+        long now = System.nanoTime();
+        long maxLag = 0;
+        for (Queued queued : group) {
+            orderIds.add(queued.orderId());
+            maxLag = Math.max(maxLag, now - queued.enqueuedAtNanos());
+        }
+        lastBatchMaxLagNanos = maxLag;
+        inFlight.addAndGet(group.size());
+        try {
+            for (OrderTransitionResult result : workflowService.finalizeOrders(orderIds)) {
+                switch (result.outcome()) {
+                    case TRANSITIONED -> finalized.increment();
+                    // Confirmed (or cancelled) through the API in the meantime.
+                    default -> skipped.increment();
+                }
+            }
+            batches.increment();
+        } catch (RuntimeException e) {
+            // The orders are still PAID_PENDING; the next reconcile run queues them again.
+            failedBatches.increment();
+            logger.warn("Fulfillment batch of {} orders failed: {}", group.size(), e.getMessage());
+        } finally {
+            inFlight.addAndGet(-group.size());
+        }
+    }
+
+    /**
+     * Walks all PAID_PENDING orders with the keyset query and queues those not already pending.
+     * Stops early when the queue is full; the remainder is picked up by a later run.
+     */
+    void reconcile() {
+        long after = 0;
+        List<Order> page;
+        do {
+            page = orderRepository.findPageByStatus(OrderState.PAID_PENDING, after, Long.MAX_VALUE,
+                    PageRequest.of(0, reconcilePageSize));
+            for (Order order : page) {
+                if (pending.contains(order.getOrderId())) {
+                    continue;
+                }
+                if (!enqueue(order.getOrderId())) {
+                    return;
+                }
+                reconciled.increment();
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getOrderId();
+            }
+        } while (running && page.size() == reconcilePageSize);
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            logger.warn("Fulfillment reconcile failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.enums.OrderState;
+import com.example.ecommerce.model.OrderEvent;
+import com.example.ecommerce.repository.OrderEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of order state changes, written with group commit.
+ *
+ * Transitions hand their event to the journal once their own transaction has committed, so the request
+ * thread only enqueues and never waits for an extra insert. A single writer thread drains whatever has
+ * accumulated and appends it with one JDBC batch in one transaction, so concurrent transitions share a
+ * single journal commit. Committed groups are then applied to the {@link OrderStateProjection}.
+ *
+ * Events are handed over from afterCommit callbacks on different request threads, so two consecutive
+ * transitions of one order can reach the queue, and therefore eventSeq, in reverse order. Each event
+ * carries the order version it produced, and consumers order an order's events by that version.
+ *
+ * Events still queued when the process dies are lost; the window is bounded by one flush, and an orderly
+ * shutdown drains the queue first.
+ */
+@Service
+public class OrderEventJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventJournal.class);
+    private static final String INSERT_SQL =
+            "insert into order_events (order_id, from_state, to_state, occurred_at, order_version) values (?, ?, ?, ?, ?)";
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderEventRepository eventRepository;
+    private final OrderStateProjection projection;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<OrderEvent> queue;
+    private final int maxBatch;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public OrderEventJournal(JdbcTemplate jdbcTemplate,
+                             OrderEventRepository eventRepository,
+                             OrderStateProjection projection,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${checkout.journal.queue-capacity:10000}") int queueCapacity,
+                             @Value("${checkout.journal.max-batch:500}") int maxBatch) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventRepository = eventRepository;
+        this.projection = projection;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::run, "order-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(10_000);
+    }
+
+    /**
+     * Records a state change. Inside a transaction the event is queued only after it commits,
+     * so rolled-back transitions never reach the journal.
+     *
+     * @param orderVersion The order's version after this change.
+     */
+    public void record(Long orderId, OrderState from, OrderState to, long orderVersion) {
+        OrderEvent event = new OrderEvent(orderId, from, to, Instant.now(), orderVersion);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * Full state history of an order, oldest first.
+     */
+    public List<OrderEvent> history(Long orderId) {
+        return eventRepository.findByOrderIdOrderByEventSeq(orderId);
+    }
+
+    private void enqueue(OrderEvent event) {
+        try {
+            // Blocks only when the writer has fallen a full queue behind; that backpressure is intended.
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while journaling event for order {}; event dropped.", event.getOrderId());
+        }
+    }
+
+    private void run() {
+        List<OrderEvent> group = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty() || !group.isEmpty()) {
+            try {
+                if (group.isEmpty()) {
+                    OrderEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    group.add(first);
+                    queue.drainTo(group, maxBatch - 1);
+                }
+                transactionTemplate.executeWithoutResult(status -> append(group));
+                projection.apply(group);
+                group.clear();
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                // Keep the group and retry it, so events are neither lost nor reordered.
+                logger.warn("Order journal flush of {} events failed, retrying: {}", group.size(), e.getMessage());
+                if (!running) {
+                    logger.error("Dropping {} unjournaled order events at shutdown.", group.size() + queue.size());
+                    return;
+                }
+                sleepBeforeRetry();
+            }
+        }
+    }
+
+    // One JDBC batch per group; Hibernate cannot batch IDENTITY inserts, so plain JDBC is used here.
+    private void append(List<OrderEvent> group) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderEvent event = group.get(i);
+                ps.setLong(1, event.getOrderId());
+                ps.setString(2, event.getFromState() == null ? null : event.getFromState().name());
+                ps.setString(3, event.getToState().name());
+                ps.setTimestamp(4, Timestamp.from(event.getOccurredAt()));
+                ps.setLong(5, event.getOrderVersion());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return group.size();
+            }
+        });
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+}
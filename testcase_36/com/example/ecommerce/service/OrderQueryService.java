@@ -0,0 +1,113 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.enums.OrderState;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderPage;
+import com.example.ecommerce.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Read-side queries over orders by state, using keyset pagination on (currentStatus, orderId).
+ */
+@Service
+public class OrderQueryService {
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate exportPageTemplate;
+    private final ObjectWriter orderWriter;
+    private final int maxPageSize;
+    private final int exportPageSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public OrderQueryService(OrderRepository orderRepository,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${checkout.query.max-page-size:1000}") int maxPageSize,
+                             @Value("${checkout.query.export-page-size:1000}") int exportPageSize) {
+        this.orderRepository = orderRepository;
+        this.exportPageTemplate = new TransactionTemplate(transactionManager);
+        this.exportPageTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.exportPageTemplate.setReadOnly(true);
+        // Flushed once per page rather than after every order.
+        this.orderWriter = objectMapper.writerFor(Order.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.maxPageSize = maxPageSize;
+        this.exportPageSize = exportPageSize;
+    }
+
+    /**
+     * Returns up to limit orders in the state with afterId &lt; orderId &lt; beforeId, oldest first.
+     *
+     * @param afterId  Keyset cursor; 0 (or null) to start from the oldest order.
+     * @param beforeId Exclusive upper bound, e.g. to select orders older than a given one; null for none.
+     * @throws IllegalArgumentException if the limit is out of range.
+     */
+    public OrderPage findByStatus(OrderState status, Long afterId, Long beforeId, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize + ".");
+        }
+        List<Order> orders = page(status, afterId, beforeId, limit);
+        Long nextAfter = orders.size() == limit ? orders.get(orders.size() - 1).getOrderId() : null;
+        return new OrderPage(orders, nextAfter);
+    }
+
+    /**
+     * Writes all matching orders as newline-delimited JSON. Pages are fetched one at a time with
+     * the keyset cursor, each in its own read-only transaction, and the persistence context is
+     * cleared after every page, so neither memory nor locks grow with the result.
+     *
+     * With spring.jpa.open-in-view left on, the request's EntityManager is re-bound on the
+     * streaming thread and would otherwise keep every exported order managed until the response
+     * ends; the per-page clear is what keeps the export bounded in that case.
+     */
+    public void exportByStatus(OrderState status, Long afterId, Long beforeId, OutputStream out) throws IOException {
+        try (JsonGenerator generator = orderWriter.getFactory().createGenerator(out)) {
+            Long cursor = afterId;
+            List<Order> orders;
+            do {
+                Long pageCursor = cursor;
+                orders = exportPageTemplate.execute(tx -> page(status, pageCursor, beforeId, exportPageSize));
+                try {
+                    for (Order order : orders) {
+                        orderWriter.writeValue(generator, order);
+                        generator.writeRaw('\n');
+                    }
+                    if (!orders.isEmpty()) {
+                        cursor = orders.get(orders.size() - 1).getOrderId();
+                        generator.flush();
+                    }
+                } finally {
+                    entityManager.clear();
+                }
+            } while (orders.size() == exportPageSize);
+        }
+    }
+
+    private List<Order> page(OrderState status, Long afterId, Long beforeId, int limit) {
+        if (status == null) {
+            throw new IllegalArgumentException("Order state is required.");
+        }
+        return orderRepository.findPageByStatus(status,
+                afterId == null ? 0L : afterId,
+                beforeId == null ? Long.MAX_VALUE : beforeId,
+                PageRequest.of(0, limit));
+    }
+}
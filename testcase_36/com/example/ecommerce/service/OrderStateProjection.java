@@ -0,0 +1,233 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.enums.OrderState;
+import com.example.ecommerce.model.OrderEvent;
+import com.example.ecommerce.model.OrderSnapshot;
+import com.example.ecommerce.repository.OrderEventRepository;
+import com.example.ecommerce.repository.OrderSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory projection of each order's current state, materialized from the order journal.
+ *
+ * On startup it is rebuilt from the latest {@link OrderSnapshot}s plus the journal events after the
+ * snapshot watermark; afterwards the journal writer applies each committed group of events. A background
+ * task periodically folds the journal tail into the snapshot table, so a rebuild only ever replays the
+ * events since the last snapshot. State lookups and per-state counts for audit are served from here
+ * instead of the orders table.
+ *
+ * eventSeq order is not commit order within one order (see {@link OrderEventJournal}), so an event only
+ * replaces the projected state, live, on replay or in a snapshot, if it carries a newer order version.
+ */
+@Service
+public class OrderStateProjection {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStateProjection.class);
+    private static final String INSERT_SNAPSHOT_SQL =
+            "insert into order_snapshots (current_status, order_version, event_seq, order_id) values (?, ?, ?, ?)";
+    private static final String UPDATE_SNAPSHOT_SQL =
+            "update order_snapshots set current_status = ?, order_version = ?, event_seq = ? where order_id = ?";
+
+    private final OrderEventRepository eventRepository;
+    private final OrderSnapshotRepository snapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize;
+    private final long snapshotIntervalMillis;
+
+    private final Map<Long, Projected> states = new ConcurrentHashMap<>();
+    private final Map<OrderState, LongAdder> counts = new EnumMap<>(OrderState.class);
+    private final ScheduledExecutorService snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "order-snapshotter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Autowired
+    public OrderStateProjection(OrderEventRepository eventRepository,
+                                OrderSnapshotRepository snapshotRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${checkout.journal.page-size:5000}") int pageSize,
+                                @Value("${checkout.journal.snapshot-interval-ms:60000}") long snapshotIntervalMillis) {
+        this.eventRepository = eventRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pageSize = pageSize;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        for (OrderState state : OrderState.values()) {
+            counts.put(state, new LongAdder());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+        snapshotter.scheduleWithFixedDelay(this::snapshotSafely,
+                snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshotter.shutdownNow();
+    }
+
+    public Optional<OrderState> currentState(Long orderId) {
+        return Optional.ofNullable(states.get(orderId)).map(Projected::state);
+    }
+
+    /**
+     * Number of orders currently in each state.
+     */
+    public Map<OrderState, Long> stateCounts() {
+        Map<OrderState, Long> result = new LinkedHashMap<>();
+        counts.forEach((state, count) -> result.put(state, count.sum()));
+        return result;
+    }
+
+    /**
+     * Applies committed journal events. Called by the journal writer, in journal order; an event
+     * older than the projected version of its order is ignored.
+     */
+    void apply(List<OrderEvent> events) {
+        for (OrderEvent event : events) {
+            put(event.getOrderId(), event.getToState(), event.getOrderVersion());
+        }
+    }
+
+    private void rebuild() {
+        long lastOrderId = 0;
+        List<OrderSnapshot> page;
+        do {
+            page = snapshotRepository.findByOrderIdGreaterThanOrderByOrderId(lastOrderId, PageRequest.of(0, pageSize));
+            for (OrderSnapshot snapshot : page) {
+                put(snapshot.getOrderId(), snapshot.getCurrentStatus(), snapshot.getOrderVersion());
+                lastOrderId = snapshot.getOrderId();
+            }
+        } while (page.size() == pageSize);
+
+        long watermark = snapshotRepository.findWatermark();
+        long seq = watermark;
+        List<OrderEvent> tail;
+        do {
+            tail = eventRepository.findByEventSeqGreaterThanOrderByEventSeq(seq, PageRequest.of(0, pageSize));
+            apply(tail);
+            if (!tail.isEmpty()) {
+                seq = tail.get(tail.size() - 1).getEventSeq();
+            }
+        } while (tail.size() == pageSize);
+        logger.info("Rebuilt order state projection: {} orders, {} events replayed after snapshot {}.",
+                states.size(), seq - watermark, watermark);
+    }
+
+    /**
+     * Folds the journal tail into the snapshot table, one page per transaction. Each order in a page gets
+     * the state of its highest-version event and the eventSeq of its last event in the page, so the page's
+     * last event always produces a row and the highest snapshot eventSeq is exactly the journal position
+     * covered. Existing rows are read with one query and written back with one JDBC batch per statement.
+     */
+    void snapshot() {
+        long seq = snapshotRepository.findWatermark();
+        List<OrderEvent> page;
+        do {
+            page = eventRepository.findByEventSeqGreaterThanOrderByEventSeq(seq, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            Map<Long, OrderSnapshot> folded = new LinkedHashMap<>();
+            for (OrderEvent event : page) {
+                folded.merge(event.getOrderId(),
+                        new OrderSnapshot(event.getOrderId(), event.getToState(), event.getEventSeq(), event.getOrderVersion()),
+                        OrderStateProjection::fold);
+            }
+            transactionTemplate.executeWithoutResult(status -> writeSnapshots(folded));
+            seq = page.get(page.size() - 1).getEventSeq();
+        } while (page.size() == pageSize);
+    }
+
+    private void writeSnapshots(Map<Long, OrderSnapshot> folded) {
+        Map<Long, OrderSnapshot> existing = new HashMap<>();
+        for (OrderSnapshot snapshot : snapshotRepository.findAllById(folded.keySet())) {
+            existing.put(snapshot.getOrderId(), snapshot);
+        }
+        List<OrderSnapshot> inserts = new ArrayList<>();
+        List<OrderSnapshot> updates = new ArrayList<>();
+        for (OrderSnapshot snapshot : folded.values()) {
+            OrderSnapshot current = existing.get(snapshot.getOrderId());
+            if (current == null) {
+                inserts.add(snapshot);
+            } else {
+                updates.add(fold(current, snapshot));
+            }
+        }
+        batchWrite(INSERT_SNAPSHOT_SQL, inserts);
+        batchWrite(UPDATE_SNAPSHOT_SQL, updates);
+    }
+
+    private void batchWrite(String sql, List<OrderSnapshot> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getCurrentStatus().name());
+            ps.setLong(2, row.getOrderVersion());
+            ps.setLong(3, row.getEventSeq());
+            ps.setLong(4, row.getOrderId());
+        });
+    }
+
+    // State of the newer version, journal position of the later event.
+    private static OrderSnapshot fold(OrderSnapshot earlier, OrderSnapshot later) {
+        OrderSnapshot newest = later.getOrderVersion() > earlier.getOrderVersion() ? later : earlier;
+        return new OrderSnapshot(later.getOrderId(), newest.getCurrentStatus(),
+                Math.max(earlier.getEventSeq(), later.getEventSeq()), newest.getOrderVersion());
+    }
+
+    private void snapshotSafely() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            // Retried on the next run; the journal still holds every event.
+            logger.warn("Order state snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    private void put(Long orderId, OrderState state, long version) {
+        states.compute(orderId, (id, current) -> {
+            if (current != null && current.version() >= version) {
+                return current;
+            }
+            if (current != null) {
+                counts.get(current.state()).decrement();
+            }
+            counts.get(state).increment();
+            return new Projected(state, version);
+        });
+    }
+
+    private record Projected(OrderState state, long version) {}
+}
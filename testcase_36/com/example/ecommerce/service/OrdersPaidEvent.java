@@ -0,0 +1,8 @@
+package com.example.ecommerce.service;
+
+import java.util.List;
+
+/**
+ * Published by {@link WorkflowService} when orders move to PAID_PENDING; delivered after the commit.
+ */
+public record OrdersPaidEvent(List<Long> orderIds) {}
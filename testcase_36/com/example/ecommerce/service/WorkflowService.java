@@ -1,37 +1,72 @@
 package com.example.ecommerce.service;
 
 import com.example.ecommerce.enums.OrderState;
+import com.example.ecommerce.enums.TransitionOutcome;
+import com.example.ecommerce.model.Money;
 import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderEvent;
+import com.example.ecommerce.model.OrderTransitionResult;
+import com.example.ecommerce.repository.OrderAmountView;
 import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.OrderStatusView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 @Service
 public class WorkflowService {
 
     private final OrderRepository orderRepository;
+    private final OrderEventJournal journal;
+    private final OrderStateProjection projection;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchChunkSize;
+    private final int maxBatchSize;
 
     @Autowired
-    public WorkflowService(OrderRepository orderRepository) {
+    public WorkflowService(OrderRepository orderRepository,
+                           OrderEventJournal journal,
+                           OrderStateProjection projection,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${checkout.batch.chunk-size:500}") int batchChunkSize,
+                           @Value("${checkout.batch.max-orders:10000}") int maxBatchSize) {
         this.orderRepository = orderRepository;
+        this.journal = journal;
+        this.projection = projection;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchChunkSize = batchChunkSize;
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
      * Step 1: Initialize a new order in the CART state.
      */
     @Transactional
-    public Order initiateCart(BigDecimal amount, String email) {
+    public Order initiateCart(Money amount, String email) {
         // Input validation is primarily handled by the Controller, but defensive checks remain good practice.
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (amount == null || !amount.isPositive()) {
             throw new IllegalArgumentException("Order amount must be positive.");
         }
 
         Order newOrder = new Order(amount, email);
-        return orderRepository.save(newOrder);
+        Order saved = orderRepository.save(newOrder);
+        journal.record(saved.getOrderId(), null, OrderState.CART, saved.getVersion());
+        return saved;
     }
 
     /**
@@ -40,44 +75,157 @@ public class WorkflowService {
      */
     @Transactional
     public Order processPayment(Long orderId) {
-        // Use parameterized query via JPA repository to prevent SQL Injection
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new NoSuchElementException("Order not found for ID: " + orderId));
-
         // SECURITY CHECK: Enforce sequential transition (CART -> PAID_PENDING)
-        if (order.getCurrentStatus() != OrderState.CART) {
-            throw new IllegalStateException(
-                    String.format("Cannot process payment. Order %d is currently in state: %s",
-                            orderId, order.getCurrentStatus()));
-        }
-
         // Simulate external payment gateway interaction success
-        order.setCurrentStatus(OrderState.PAID_PENDING);
-        return orderRepository.save(order);
+        Order order = transition(orderId, OrderState.CART, OrderState.PAID_PENDING, "Cannot process payment");
+        // Hands the order to the FulfillmentPipeline once this transaction commits
+        eventPublisher.publishEvent(new OrdersPaidEvent(List.of(orderId)));
+        return order;
     }
 
     /**
      * Step 3: Finalize the order, moving it from PAID_PENDING to CONFIRMED.
      *
      * VULNERABILITY PREVENTION (CWE-841): State Transition Bypass
-     * This method implements the mandatory check to ensure payment occurred.
+     * The conditional UPDATE only matches orders in PAID_PENDING, so payment cannot be skipped.
      */
     @Transactional
     public Order finalizeOrder(Long orderId) {
+        // Critical business logic: Confirmation
+        return transition(orderId, OrderState.PAID_PENDING, OrderState.CONFIRMED, "Cannot confirm order");
+    }
+
+    /**
+     * Audit: full state history of an order from the journal, oldest first.
+     *
+     * @throws NoSuchElementException if the journal has no events for the order.
+     */
+    public List<OrderEvent> orderHistory(Long orderId) {
+        List<OrderEvent> history = journal.history(orderId);
+        if (history.isEmpty()) {
+            throw new NoSuchElementException("No history found for order ID: " + orderId);
+        }
+        return history;
+    }
+
+    /**
+     * Audit: number of orders per state, served from the journal projection.
+     */
+    public Map<OrderState, Long> stateCounts() {
+        return projection.stateCounts();
+    }
+
+    /**
+     * Batch variant of {@link #processPayment}: moves every listed order from CART to PAID_PENDING.
+     *
+     * @return One result per distinct order ID, in request order.
+     */
+    public List<OrderTransitionResult> processPayments(List<Long> orderIds) {
+        return transitionBatch(orderIds, OrderState.CART, OrderState.PAID_PENDING);
+    }
+
+    /**
+     * Batch variant of {@link #finalizeOrder}: moves every listed order from PAID_PENDING to CONFIRMED.
+     *
+     * @return One result per distinct order ID, in request order.
+     */
+    public List<OrderTransitionResult> finalizeOrders(List<Long> orderIds) {
+        return transitionBatch(orderIds, OrderState.PAID_PENDING, OrderState.CONFIRMED);
+    }
+
+    /**
+     * Applies a state transition as a single conditional UPDATE (compare-and-set on currentStatus),
+     * so two concurrent requests can never both pass the state check. The order is only read
+     * again to build the response, or to explain why nothing was updated.
+     *
+     * @throws NoSuchElementException if the order does not exist.
+     * @throws IllegalStateException if the order is not in the expected state.
+     */
+    private Order transition(Long orderId, OrderState expected, OrderState target, String action) {
         // Use parameterized query via JPA repository to prevent SQL Injection
+        int updated = orderRepository.transition(orderId, expected, target);
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new NoSuchElementException("Order not found for ID: " + orderId));
+        if (updated == 0) {
+            throw new IllegalStateException(
+                    String.format("%s. Order %d is currently in state: %s",
+                            action, orderId, order.getCurrentStatus()));
+        }
+        // Re-read after the UPDATE, so this is the version the transition produced.
+        journal.record(orderId, expected, target, order.getVersion());
+        return order;
+    }
 
-        // --- CRITICAL SECURE WORKFLOW ENFORCEMENT (CWE-841 Mitigation) ---
-        // Check if the order is in the required prerequisite state (PAID_PENDING).
-        // This prevents an attacker from skipping the payment step and confirming the order directly.
-        // VULNERABILITY INJECTED: The state check is removed, allowing confirmation regardless of payment status.
-        
-        // --- END SECURE CHECK ---
+    /**
+     * Runs a transition over many orders in chunks, one transaction per chunk, so a large batch
+     * never holds row locks for long. Each chunk locks the eligible rows, moves them with one
+     * set-based UPDATE and classifies the rest. Chunks that committed stay committed if a later
+     * one fails; retrying the batch is safe because moved orders are then reported as WRONG_STATE.
+     *
+     * @throws IllegalArgumentException if the batch is empty, too large or contains an invalid ID.
+     */
+    private List<OrderTransitionResult> transitionBatch(List<Long> orderIds, OrderState expected, OrderState target) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one order ID is required.");
+        }
+        Set<Long> distinct = new LinkedHashSet<>(orderIds);
+        if (distinct.size() > maxBatchSize) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxBatchSize + " orders.");
+        }
+        for (Long orderId : distinct) {
+            if (orderId == null || orderId < 1) {
+                throw new IllegalArgumentException("Order IDs must be positive.");
+            }
+        }
 
-        // Critical business logic: Confirmation
-        order.setCurrentStatus(OrderState.CONFIRMED);
+        List<Long> ids = new ArrayList<>(distinct);
+        List<OrderTransitionResult> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += batchChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchChunkSize, ids.size()));
+            results.addAll(transactionTemplate.execute(status -> transitionChunk(chunk, expected, target)));
+        }
+        return results;
+    }
 
-        return orderRepository.save(order);
+    private List<OrderTransitionResult> transitionChunk(List<Long> chunk, OrderState expected, OrderState target) {
+        Map<Long, Money> eligible = new HashMap<>();
+        // Rows are locked, so each transitioned order ends up exactly one version above what was read.
+        Map<Long, Long> nextVersions = new HashMap<>();
+        for (OrderAmountView view : orderRepository.lockInState(chunk, expected)) {
+            eligible.put(view.getOrderId(), view.getTotalAmount());
+            nextVersions.put(view.getOrderId(), (view.getVersion() == null ? 0L : view.getVersion()) + 1);
+        }
+        if (!eligible.isEmpty()) {
+            orderRepository.transitionAll(eligible.keySet(), expected, target);
+        }
+        if (!eligible.isEmpty() && target == OrderState.PAID_PENDING) {
+            eventPublisher.publishEvent(new OrdersPaidEvent(new ArrayList<>(eligible.keySet())));
+        }
+        Map<Long, OrderState> others = new HashMap<>();
+        if (eligible.size() < chunk.size()) {
+            List<Long> remaining = new ArrayList<>(chunk.size() - eligible.size());
+            for (Long orderId : chunk) {
+                if (!eligible.containsKey(orderId)) {
+                    remaining.add(orderId);
+                }
+            }
+            for (OrderStatusView view : orderRepository.findStatuses(remaining)) {
+                others.put(view.getOrderId(), view.getCurrentStatus());
+            }
+        }
+
+        List<OrderTransitionResult> results = new ArrayList<>(chunk.size());
+        for (Long orderId : chunk) {
+            if (eligible.containsKey(orderId)) {
+                journal.record(orderId, expected, target, nextVersions.get(orderId));
+                results.add(new OrderTransitionResult(orderId, TransitionOutcome.TRANSITIONED, target,
+                        eligible.get(orderId)));
+            } else if (others.containsKey(orderId)) {
+                results.add(new OrderTransitionResult(orderId, TransitionOutcome.WRONG_STATE, others.get(orderId), null));
+            } else {
+                results.add(new OrderTransitionResult(orderId, TransitionOutcome.NOT_FOUND, null, null));
+            }
+        }
+        return results;
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.example.ecommerce.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, TTL-evicting store of responses keyed by Idempotency-Key.
+ *
+ * Every entry lives for the same TTL, so insertion order is also expiry order: a FIFO queue next to
+ * the map is enough to evict expired entries and to enforce the size bound, in amortized O(1) per
+ * request and without a background sweeper. An entry is created before the request executes and holds
+ * a future of its response, which is how concurrent duplicates find and wait for the first execution.
+ */
+@Component
+public class IdempotencyCache {
+
+    /**
+     * A captured response, replayed verbatim for retries.
+     */
+    public record StoredResponse(int status, String contentType, byte[] body) {}
+
+    /**
+     * An idempotency record. The body hash detects a key being reused for a different request.
+     */
+    public static final class Entry {
+        private final byte[] requestHash;
+        private final long expiresAtNanos;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        Entry(byte[] requestHash, long expiresAtNanos) {
+            this.requestHash = requestHash;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        public boolean matches(byte[] hash) {
+            return Arrays.equals(requestHash, hash);
+        }
+
+        public CompletableFuture<StoredResponse> response() {
+            return response;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    /**
+     * Result of {@link #claim}: either this caller owns the execution, or an earlier entry exists.
+     */
+    public record Claim(Entry entry, boolean owner) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Map.Entry<String, Entry>> expiryOrder = new ConcurrentLinkedQueue<>();
+    // Tracked separately because ConcurrentLinkedQueue.size() is a full traversal.
+    private final AtomicInteger queued = new AtomicInteger();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    @Autowired
+    public IdempotencyCache(@Value("${checkout.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${checkout.idempotency.max-entries:100000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the live entry for the key, or atomically creates one owned by the caller.
+     */
+    public Claim claim(String key, byte[] requestHash) {
+        long now = System.nanoTime();
+        evict(now);
+        Entry created = new Entry(requestHash, now + ttlNanos);
+        Entry existing = entries.compute(key, (k, current) ->
+                current == null || current.isExpired(now) ? created : current);
+        if (existing != created) {
+            return new Claim(existing, false);
+        }
+        expiryOrder.add(Map.entry(key, created));
+        queued.incrementAndGet();
+        return new Claim(created, true);
+    }
+
+    /**
+     * Completes an owned entry. Retained responses are replayed until the TTL elapses; others are only
+     * handed to the duplicates already waiting and then forgotten, so a later retry executes again.
+     */
+    public void complete(String key, Entry entry, StoredResponse response, boolean retain) {
+        if (!retain) {
+            entries.remove(key, entry);
+        }
+        entry.response.complete(response);
+    }
+
+    /**
+     * Abandons an owned entry after the execution failed without a response.
+     */
+    public void fail(String key, Entry entry, Throwable failure) {
+        entries.remove(key, entry);
+        entry.response.completeExceptionally(failure);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Map.Entry<String, Entry> head;
+        // The queue also holds entries already dropped from the map, so bounding it bounds both.
+        while ((head = expiryOrder.peek()) != null
+                && (head.getValue().isExpired(now) || queued.get() > maxEntries)) {
+            if (expiryOrder.remove(head)) {
+                queued.decrementAndGet();
+                entries.remove(head.getKey(), head.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.ecommerce.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Honors the Idempotency-Key header on the checkout mutation endpoints.
+ *
+ * The first request with a key executes normally and its response is captured in the
+ * {@link IdempotencyCache}; retries with the same key and body get that response replayed without
+ * reaching the controller or the database. Duplicates arriving while the first is still running wait
+ * for its result instead of executing again. Success and client-error responses are retained for the
+ * TTL; server errors are only shared with concurrent duplicates, so a later retry runs again.
+ * Reusing a key for a different request body is rejected with 422.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> PATHS = Set.of(
+            "/api/checkout/payment", "/api/checkout/confirm",
+            "/api/checkout/payment/batch", "/api/checkout/confirm/batch");
+
+    private final IdempotencyCache cache;
+    private final ObjectMapper objectMapper;
+    private final int maxBodyBytes;
+    private final long waitMillis;
+
+    @Autowired
+    public IdempotencyFilter(IdempotencyCache cache,
+                             ObjectMapper objectMapper,
+                             @Value("${checkout.idempotency.max-body-bytes:1048576}") int maxBodyBytes,
+                             @Value("${checkout.idempotency.duplicate-wait:30s}") Duration duplicateWait) {
+        this.cache = cache;
+        this.objectMapper = objectMapper;
+        this.maxBodyBytes = maxBodyBytes;
+        this.waitMillis = duplicateWait.toMillis();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Invalid Input",
+                    HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters.");
+            return;
+        }
+        byte[] body = readBody(request);
+        if (body == null) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "Invalid Input",
+                    "Request body exceeds " + maxBodyBytes + " bytes.");
+            return;
+        }
+
+        // Keys are scoped to the endpoint, so the same key on /payment and /confirm does not collide.
+        String scopedKey = request.getRequestURI() + '\n' + key;
+        byte[] requestHash = hash(body);
+        IdempotencyCache.Claim claim = cache.claim(scopedKey, requestHash);
+        IdempotencyCache.Entry entry = claim.entry();
+        if (!entry.matches(requestHash)) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency Conflict",
+                    HEADER + " was already used for a different request.");
+            return;
+        }
+        if (!claim.owner()) {
+            replay(entry, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), captured);
+        } catch (IOException | ServletException | RuntimeException e) {
+            cache.fail(scopedKey, entry, e);
+            throw e;
+        }
+        int status = captured.getStatus();
+        cache.complete(scopedKey, entry,
+                new IdempotencyCache.StoredResponse(status, captured.getContentType(), captured.getContentAsByteArray()),
+                status < 500);
+        captured.copyBodyToResponse();
+    }
+
+    private void replay(IdempotencyCache.Entry entry, HttpServletResponse response) throws IOException {
+        IdempotencyCache.StoredResponse stored;
+        try {
+            stored = entry.response().get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            writeError(response, HttpStatus.CONFLICT, "Workflow Conflict",
+                    "A request with this " + HEADER + " is still in progress. Please retry.");
+            return;
+        } catch (ExecutionException e) {
+            writeError(response, HttpStatus.INTERNAL_SERVER_ERROR, "Internal Error",
+                    "The original request with this " + HEADER + " failed. Please retry.");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE, "Unavailable", "Request was interrupted.");
+            return;
+        }
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    // Returns null if the body is larger than the limit.
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            return null;
+        }
+        // Chunked bodies carry no length, so read at most one byte past the limit to detect overflow.
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        return body.length > maxBodyBytes ? null : body;
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String error, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", error, "message", message));
+    }
+
+    private static byte[] hash(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Re-exposes the already-read body to the rest of the chain.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    Objects.requireNonNull(listener, "listener");
+                    if (!isAsyncStarted()) {
+                        throw new IllegalStateException("Read listeners require an async request.");
+                    }
+                    // The body is already in memory, so it is all available right away.
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
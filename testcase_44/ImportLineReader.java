@@ -0,0 +1,156 @@
+package com.inventory.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental reader for line-oriented import payloads (NDJSON and CSV).
+ *
+ * Reads one record at a time from the stream with a hard cap on record length, so a payload of any
+ * size is processed in constant memory and a single oversized line cannot exhaust the heap.
+ * CSV records follow RFC 4180: quoted fields may contain commas, doubled quotes and line breaks.
+ */
+class ImportLineReader {
+
+    /**
+     * Thrown for a record longer than the limit; the rest of that record is skipped.
+     */
+    static class RecordTooLongException extends IOException {
+        RecordTooLongException(int maxLength) {
+            super("Line exceeds " + maxLength + " characters.");
+        }
+    }
+
+    private final Reader in;
+    private final int maxLength;
+    private final StringBuilder buffer = new StringBuilder();
+    private long line;
+    private long recordStartLine;
+    private int pushback = -2;
+
+    ImportLineReader(Reader in, int maxLength) {
+        this.in = in;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Line number where the last returned record started (1-based).
+     */
+    long recordLine() {
+        return recordStartLine;
+    }
+
+    /**
+     * Returns the next line without its terminator, or null at end of input.
+     */
+    String readLine() throws IOException {
+        buffer.setLength(0);
+        recordStartLine = ++line;
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        boolean tooLong = false;
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                if (buffer.length() < maxLength) {
+                    buffer.append((char) c);
+                } else {
+                    tooLong = true;
+                }
+            }
+            c = read();
+        }
+        if (tooLong) {
+            throw new RecordTooLongException(maxLength);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the fields of the next CSV record, or null at end of input.
+     */
+    List<String> readCsvRecord() throws IOException {
+        recordStartLine = line + 1;
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        line++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = buffer;
+        field.setLength(0);
+        int length = 0;
+        boolean quoted = false;
+        // Tracked separately from the buffer, which is no longer filled once the record is too long.
+        boolean fieldEmpty = true;
+        boolean tooLong = false;
+        while (c != -1) {
+            // Past the limit the quoting is still followed, so only the record's own terminator ends it.
+            if (quoted) {
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        if (!tooLong) {
+                            field.append('"');
+                        }
+                        fieldEmpty = false;
+                    } else {
+                        quoted = false;
+                        unread(next);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    if (!tooLong) {
+                        field.append((char) c);
+                    }
+                    fieldEmpty = false;
+                }
+            } else if (c == '"' && fieldEmpty) {
+                quoted = true;
+            } else if (c == ',') {
+                if (!tooLong) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                }
+                fieldEmpty = true;
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                if (!tooLong) {
+                    field.append((char) c);
+                }
+                fieldEmpty = false;
+            }
+            if (!tooLong && ++length > maxLength) {
+                tooLong = true;
+                // Keep consuming to the end of the record, but stop buffering it.
+                field.setLength(0);
+                fields.clear();
+            }
+            c = read();
+        }
+        if (tooLong) {
+            throw new RecordTooLongException(maxLength);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private void unread(int c) {
+        pushback = c;
+    }
+}
@@ -0,0 +1,13 @@
+package com.inventory.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk inventory import.
+ *
+ * @param errors The first rejected rows with their line numbers; capped, see {@code rejected} for the total.
+ */
+public record ImportReport(long inserted, long updated, long rejected, List<RowError> errors) {
+
+    public record RowError(long line, String message) {}
+}
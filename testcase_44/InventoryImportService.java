@@ -0,0 +1,280 @@
+package com.inventory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.inventory.model.InventoryItem;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming bulk upsert of inventory items by SKU, for ERP syncs.
+ *
+ * The payload (NDJSON or CSV) is parsed one record at a time and buffered only up to the configured
+ * transaction size. Each chunk runs in its own transaction: existing items for the chunk's SKUs are
+ * loaded with one IN query and updated in place, new ones are persisted, and the flush at the end of
+ * the chunk sends the statements as JDBC batches (quarkus.hibernate-orm.jdbc.statement-batch-size).
+ * Rows that fail parsing or validation are rejected individually without stopping the import. If the
+ * database still refuses a chunk, the chunk is split in halves and retried until the offending rows are
+ * isolated; only those are rejected and the rest of the chunk is written.
+ */
+@ApplicationScoped
+public class InventoryImportService {
+
+    private static final Logger LOG = Logger.getLogger(InventoryImportService.class);
+    private static final List<String> CSV_COLUMNS = List.of("sku", "name", "quantity", "location");
+
+    @ConfigProperty(name = "inventory.import.transaction-size", defaultValue = "1000")
+    int transactionSize;
+
+    @ConfigProperty(name = "inventory.import.max-line-length", defaultValue = "65536")
+    int maxLineLength;
+
+    @ConfigProperty(name = "inventory.import.max-reported-errors", defaultValue = "100")
+    int maxReportedErrors;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Validator validator;
+
+    private ObjectReader itemReader;
+
+    @PostConstruct
+    void init() {
+        // Unknown fields (e.g. ERP-only attributes) are rejected rather than silently dropped.
+        itemReader = objectMapper.readerFor(InventoryItem.class)
+                                 .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Imports newline-delimited JSON, one item object per line. Blank lines are ignored.
+     */
+    public ImportReport importNdjson(InputStream body) throws IOException {
+        Run run = new Run();
+        ImportLineReader reader = reader(body);
+        while (true) {
+            String line;
+            try {
+                line = reader.readLine();
+            } catch (ImportLineReader.RecordTooLongException e) {
+                run.reject(reader.recordLine(), e.getMessage());
+                continue;
+            }
+            if (line == null) {
+                break;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                run.add(reader.recordLine(), itemReader.readValue(line));
+            } catch (JsonProcessingException e) {
+                run.reject(reader.recordLine(), "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Imports CSV with a header row naming the columns sku, name, quantity and optionally location, in any order.
+     *
+     * @throws IllegalArgumentException if the header is missing or incomplete.
+     */
+    public ImportReport importCsv(InputStream body) throws IOException {
+        ImportLineReader reader = reader(body);
+        List<String> header = reader.readCsvRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header row is required.");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (!CSV_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown CSV column '" + header.get(i) + "'.");
+            }
+            columns.put(column, i);
+        }
+        if (!columns.keySet().containsAll(CSV_COLUMNS.subList(0, 3))) {
+            throw new IllegalArgumentException("CSV header must contain sku, name and quantity.");
+        }
+
+        Run run = new Run();
+        while (true) {
+            List<String> fields;
+            try {
+                fields = reader.readCsvRecord();
+            } catch (ImportLineReader.RecordTooLongException e) {
+                run.reject(reader.recordLine(), e.getMessage());
+                continue;
+            }
+            if (fields == null) {
+                break;
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            if (fields.size() != header.size()) {
+                run.reject(reader.recordLine(), "Expected " + header.size() + " fields but found " + fields.size() + ".");
+                continue;
+            }
+            InventoryItem item = new InventoryItem();
+            item.sku = fields.get(columns.get("sku")).trim();
+            item.name = fields.get(columns.get("name")).trim();
+            Integer location = columns.get("location");
+            item.location = location == null || fields.get(location).isEmpty() ? null : fields.get(location).trim();
+            try {
+                item.quantity = Integer.parseInt(fields.get(columns.get("quantity")).trim());
+            } catch (NumberFormatException e) {
+                run.reject(reader.recordLine(), "Quantity must be an integer.");
+                continue;
+            }
+            run.add(reader.recordLine(), item);
+        }
+        return run.finish();
+    }
+
+    private ImportLineReader reader(InputStream body) {
+        return new ImportLineReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), maxLineLength);
+    }
+
+    /**
+     * State of one import: the pending chunk and running totals.
+     */
+    private final class Run {
+        // Keyed by SKU so a SKU repeated within a chunk is applied once, last row wins.
+        private final Map<String, Row> chunk = new LinkedHashMap<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long inserted;
+        private long updated;
+        private long rejected;
+
+        void add(long line, InventoryItem item) {
+            if (item == null) {
+                reject(line, "Item must be a JSON object.");
+                return;
+            }
+            Set<ConstraintViolation<InventoryItem>> violations = validator.validate(item);
+            if (!violations.isEmpty()) {
+                reject(line, violations.iterator().next().getMessage());
+                return;
+            }
+            chunk.put(item.sku, new Row(line, item));
+            if (chunk.size() >= transactionSize) {
+                flushChunk();
+            }
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportReport.RowError(line, message));
+            }
+        }
+
+        ImportReport finish() {
+            if (!chunk.isEmpty()) {
+                flushChunk();
+            }
+            LOG.infof("Inventory import finished: %d inserted, %d updated, %d rejected.", inserted, updated, rejected);
+            return new ImportReport(inserted, updated, rejected, errors);
+        }
+
+        private void flushChunk() {
+            List<Row> rows = new ArrayList<>(chunk.values());
+            chunk.clear();
+            write(rows);
+        }
+
+        // Bisects on failure, so a bad row costs about 2 * log2(chunk size) extra transactions.
+        private void write(List<Row> rows) {
+            int[] counts;
+            try {
+                counts = upsertInTransaction(rows);
+            } catch (PersistenceException e) {
+                if (rows.size() == 1) {
+                    LOG.debugf(e, "Import row at line %d rejected by the database.", rows.get(0).line());
+                    reject(rows.get(0).line(), "Rejected by the database (constraint violation or invalid value).");
+                    return;
+                }
+                int middle = rows.size() / 2;
+                write(rows.subList(0, middle));
+                write(rows.subList(middle, rows.size()));
+                return;
+            }
+            inserted += counts[0];
+            updated += counts[1];
+        }
+
+        private int[] upsertInTransaction(List<Row> rows) {
+            List<InventoryItem> items = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                items.add(row.item());
+            }
+            try {
+                return QuarkusTransaction.requiringNew().call(() -> upsert(items));
+            } catch (PersistenceException e) {
+                if (!InventoryItem.isDuplicateSku(e)) {
+                    throw e;
+                }
+                // A concurrent writer inserted one of these SKUs after our lookup; with it now visible, retry once.
+                return QuarkusTransaction.requiringNew().call(() -> upsert(items));
+            }
+        }
+    }
+
+    private record Row(long line, InventoryItem item) {}
+
+    // Runs inside a chunk transaction. Returns {inserted, updated}.
+    private int[] upsert(List<InventoryItem> items) {
+        List<String> skus = new ArrayList<>(items.size());
+        for (InventoryItem item : items) {
+            skus.add(item.sku);
+        }
+        Map<String, InventoryItem> existing = new HashMap<>();
+        for (InventoryItem entity : InventoryItem.<InventoryItem>list("sku in ?1", skus)) {
+            existing.put(entity.sku, entity);
+        }
+        int inserted = 0;
+        int updated = 0;
+        for (InventoryItem item : items) {
+            InventoryItem entity = existing.get(item.sku);
+            if (entity == null) {
+                item.id = null;
+                item.persist();
+                inserted++;
+            } else {
+                entity.name = item.name;
+                entity.quantity = item.quantity;
+                entity.location = item.location;
+                updated++;
+            }
+        }
+        // Sends the chunk as JDBC batches and releases the managed entities before the next chunk.
+        InventoryItem.flush();
+        InventoryItem.getEntityManager().clear();
+        return new int[] {inserted, updated};
+    }
+}
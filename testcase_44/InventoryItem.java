@@ -1,22 +1,37 @@
 package com.inventory.model;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import io.quarkus.panache.common.Sort;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import org.hibernate.exception.ConstraintViolationException;
+import java.util.List;
+import java.util.Locale;
 
 @Entity
+@Table(indexes = @Index(name = "ux_inventory_item_sku", columnList = "sku", unique = true))
 public class InventoryItem extends PanacheEntity {
 
+    // Uniqueness is enforced by the index; callers detect duplicates from the constraint violation.
+    // Sizes match the column lengths, so an oversized value fails validation instead of the INSERT.
     @NotBlank(message = "SKU cannot be blank")
+    @Size(max = 255, message = "SKU must be at most 255 characters")
+    @Column(nullable = false)
     public String sku;
 
     @NotBlank(message = "Name cannot be blank")
+    @Size(max = 255, message = "Name must be at most 255 characters")
     public String name;
 
     @PositiveOrZero(message = "Quantity must be non-negative")
     public int quantity;
 
+    @Size(max = 255, message = "Location must be at most 255 characters")
     public String location;
 
     /**
@@ -28,4 +43,64 @@ public class InventoryItem extends PanacheEntity {
         // Secure query using Panache (prevents SQL Injection)
         return find("sku = ?1", sku).firstResult();
     }
+
+    /**
+     * Looks up only the id for a SKU, without loading the entity. Served by the unique SKU index.
+     * @param sku The SKU to search for.
+     * @return The id or null.
+     */
+    public static Long findIdBySku(String sku) {
+        return getEntityManager()
+                .createQuery("select i.id from InventoryItem i where i.sku = :sku", Long.class)
+                .setParameter("sku", sku)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Keyset page: the next items after the given id, in id order.
+     * Uses the primary key index, so every page costs the same regardless of its position.
+     * @param afterId The last id of the previous page, or 0 for the first page.
+     * @param limit Maximum number of items to return.
+     * @return The items, at most limit of them.
+     */
+    public static List<InventoryItem> findPageAfter(long afterId, int limit) {
+        return find("id > ?1", Sort.by("id"), afterId).page(0, limit).list();
+    }
+
+    /**
+     * Atomically adds stock in a single UPDATE, refusing to overflow.
+     * @param id The item id.
+     * @param amount The positive amount to add.
+     * @return The number of rows updated: 0 if the item does not exist or the result would overflow.
+     */
+    public static int incrementQuantity(long id, int amount) {
+        return update("quantity = quantity + ?1 where id = ?2 and quantity <= ?3", amount, id, Integer.MAX_VALUE - amount);
+    }
+
+    /**
+     * Atomically removes stock in a single conditional UPDATE (no read-modify-write).
+     * @param id The item id.
+     * @param amount The positive amount to remove.
+     * @return The number of rows updated: 0 if the item does not exist or has less than amount in stock.
+     */
+    public static int decrementQuantity(long id, int amount) {
+        return update("quantity = quantity - ?1 where id = ?2 and quantity >= ?1", amount, id);
+    }
+
+    /**
+     * Checks whether a persistence failure was caused by the unique SKU index.
+     * @param e The exception thrown by persist or flush.
+     * @return True for a duplicate SKU.
+     */
+    public static boolean isDuplicateSku(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                return name == null || name.toLowerCase(Locale.ROOT).contains("ux_inventory_item_sku");
+            }
+        }
+        return false;
+    }
 }
\ No newline at end of file
@@ -1,14 +1,33 @@
 package com.inventory.resource;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.inventory.model.InventoryItem;
+import com.inventory.model.StockAdjustment;
+import com.inventory.service.ImportReport;
+import com.inventory.service.InventoryImportService;
+import com.inventory.service.SkuIndexCache;
+import com.inventory.service.StockWriteCombiner;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.annotation.security.Authenticated;
 import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
 import jakarta.validation.Valid;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 @Path("/api/inventory")
 @Produces(MediaType.APPLICATION_JSON)
@@ -16,14 +35,86 @@ import java.util.List;
 @Authenticated // Requires authentication for all methods in this resource
 public class InventoryResource {
 
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv";
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    SkuIndexCache skuIndex;
+
+    @Inject
+    InventoryImportService importService;
+
+    @Inject
+    StockWriteCombiner stockCombiner;
+
+    @ConfigProperty(name = "inventory.listing.max-page-size", defaultValue = "1000")
+    int maxPageSize;
+
+    @ConfigProperty(name = "inventory.export.chunk-size", defaultValue = "500")
+    int exportChunkSize;
+
     /**
-     * Retrieves all inventory items.
+     * Retrieves one page of inventory items in id order (keyset pagination).
+     * A full page carries a Link header with rel="next" pointing at the following page.
      * Requires the 'USER' role.
      */
     @GET
     @RolesAllowed("USER")
-    public List<InventoryItem> getAll() {
-        return InventoryItem.listAll();
+    public Response getAll(@QueryParam("afterId") @DefaultValue("0") long afterId,
+                           @QueryParam("limit") @DefaultValue("100") int limit,
+                           @Context UriInfo uriInfo) {
+        if (limit < 1 || limit > maxPageSize) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                           .entity("Limit must be between 1 and " + maxPageSize + ".").build();
+        }
+        List<InventoryItem> items = InventoryItem.findPageAfter(afterId, limit);
+        Response.ResponseBuilder response = Response.ok(items);
+        if (items.size() == limit) {
+            long nextAfter = items.get(items.size() - 1).id;
+            response.link(uriInfo.getRequestUriBuilder()
+                                 .replaceQueryParam("afterId", nextAfter)
+                                 .replaceQueryParam("limit", limit)
+                                 .build(), "next");
+        }
+        return response.build();
+    }
+
+    /**
+     * Exports all inventory items as newline-delimited JSON.
+     * Items are read in keyset chunks, each in its own short transaction so the persistence
+     * context is discarded per chunk; memory per request stays constant however large the catalog.
+     * Requires the 'USER' role.
+     */
+    @GET
+    @Path("/export")
+    @Produces(NDJSON)
+    @RolesAllowed("USER")
+    public Response export() {
+        StreamingOutput body = out -> {
+            // Flushed once per chunk rather than after every item
+            ObjectWriter writer = objectMapper.writerFor(InventoryItem.class)
+                                              .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                long afterId = 0;
+                List<InventoryItem> chunk;
+                do {
+                    long from = afterId;
+                    chunk = QuarkusTransaction.requiringNew().call(() -> InventoryItem.findPageAfter(from, exportChunkSize));
+                    for (InventoryItem item : chunk) {
+                        writer.writeValue(generator, item);
+                        generator.writeRaw('\n');
+                    }
+                    if (!chunk.isEmpty()) {
+                        afterId = chunk.get(chunk.size() - 1).id;
+                        generator.flush();
+                    }
+                } while (chunk.size() == exportChunkSize);
+            }
+        };
+        return Response.ok(body, NDJSON).build();
     }
 
     /**
@@ -42,6 +133,27 @@ public class InventoryResource {
         return Response.ok(item).build();
     }
 
+    /**
+     * Retrieves an inventory item by SKU, resolving the id through the in-memory SKU index.
+     * Requires the 'USER' role.
+     */
+    @GET
+    @Path("/sku/{sku}")
+    @RolesAllowed("USER")
+    public Response getBySku(@PathParam("sku") String sku) {
+        Long id = skuIndex.findId(sku);
+        InventoryItem item = id == null ? null : InventoryItem.findById(id);
+        if (id != null && (item == null || !sku.equals(item.sku))) {
+            // Stale entry (deleted, re-imported or changed elsewhere); drop it and ask the database.
+            skuIndex.evictStale(sku, id);
+            item = InventoryItem.findBySku(sku);
+        }
+        if (item == null) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Item not found.").build();
+        }
+        return Response.ok(item).build();
+    }
+
     /**
      * Creates a new inventory item.
      * Requires the 'ADMIN' role. Input validation via @Valid.
@@ -50,15 +162,49 @@ public class InventoryResource {
     @Transactional
     @RolesAllowed("ADMIN")
     public Response create(@Valid InventoryItem item) {
-        // Input validation check for business logic (unique SKU)
-        if (InventoryItem.findBySku(item.sku) != null) {
-            return Response.status(Response.Status.CONFLICT).entity("SKU already exists.").build();
+        // Business rule (unique SKU) is enforced by the unique index: no pre-query, and no check-then-insert race
+        try {
+            item.persistAndFlush();
+        } catch (PersistenceException e) {
+            if (InventoryItem.isDuplicateSku(e)) {
+                QuarkusTransaction.setRollbackOnly();
+                return Response.status(Response.Status.CONFLICT).entity("SKU already exists.").build();
+            }
+            throw e;
         }
-
-        item.persist();
+        skuIndex.putAfterCommit(item.sku, item.id);
         return Response.status(Response.Status.CREATED).entity(item).build();
     }
 
+    /**
+     * Bulk upsert by SKU from newline-delimited JSON, streamed and committed in chunks.
+     * Requires the 'ADMIN' role. Invalid rows are rejected individually and listed in the report.
+     */
+    @POST
+    @Path("/import")
+    @Consumes(NDJSON)
+    @RolesAllowed("ADMIN")
+    public Response importNdjson(InputStream body) throws IOException {
+        return Response.ok(importService.importNdjson(body)).build();
+    }
+
+    /**
+     * Bulk upsert by SKU from CSV with a header row, streamed and committed in chunks.
+     * Requires the 'ADMIN' role. Invalid rows are rejected individually and listed in the report.
+     */
+    @POST
+    @Path("/import")
+    @Consumes(CSV)
+    @RolesAllowed("ADMIN")
+    public Response importCsv(InputStream body) throws IOException {
+        try {
+            ImportReport report = importService.importCsv(body);
+            return Response.ok(report).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+    }
+
     /**
      * Updates an existing inventory item.
      * Requires the 'ADMIN' role.
@@ -74,15 +220,101 @@ public class InventoryResource {
             return Response.status(Response.Status.NOT_FOUND).entity("Item not found for update.").build();
         }
 
+        String previousSku = entity.sku;
+
         // Apply updates securely
         entity.sku = updatedItem.sku;
         entity.name = updatedItem.name;
         entity.quantity = updatedItem.quantity;
         entity.location = updatedItem.location;
 
+        if (!previousSku.equals(entity.sku)) {
+            try {
+                InventoryItem.flush();
+            } catch (PersistenceException e) {
+                if (InventoryItem.isDuplicateSku(e)) {
+                    QuarkusTransaction.setRollbackOnly();
+                    return Response.status(Response.Status.CONFLICT).entity("SKU already exists.").build();
+                }
+                throw e;
+            }
+            skuIndex.evict(previousSku);
+            skuIndex.putAfterCommit(entity.sku, entity.id);
+        }
+
         return Response.ok(entity).build();
     }
 
+    /**
+     * Adds stock atomically, without rewriting the whole item.
+     * For items configured for write-combining the change is queued and 202 Accepted is returned,
+     * or 503 if too many adjustments are already waiting to be applied.
+     * Requires the 'ADMIN' role.
+     */
+    @POST
+    @Path("/{id}/increment")
+    @Transactional
+    @RolesAllowed("ADMIN")
+    public Response increment(@PathParam("id") Long id, @Valid StockAdjustment adjustment) {
+        if (stockCombiner.combines(id)) {
+            if (!stockCombiner.submit(id, adjustment.amount())) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .entity("Too many stock adjustments are pending. Please retry later.").build();
+            }
+            return Response.accepted().build();
+        }
+        return stockResult(id, InventoryItem.incrementQuantity(id, adjustment.amount()), "Quantity would overflow.");
+    }
+
+    /**
+     * Removes stock atomically; fails with 409 rather than going below zero.
+     * For items configured for write-combining the change is queued and 202 Accepted is returned,
+     * or 503 if too many adjustments are already waiting to be applied.
+     * Requires the 'ADMIN' role.
+     */
+    @POST
+    @Path("/{id}/decrement")
+    @Transactional
+    @RolesAllowed("ADMIN")
+    public Response decrement(@PathParam("id") Long id, @Valid StockAdjustment adjustment) {
+        if (stockCombiner.combines(id)) {
+            if (!stockCombiner.submit(id, -adjustment.amount())) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .entity("Too many stock adjustments are pending. Please retry later.").build();
+            }
+            return Response.accepted().build();
+        }
+        return stockResult(id, InventoryItem.decrementQuantity(id, adjustment.amount()), "Insufficient stock.");
+    }
+
+    /**
+     * Reserves stock for an order: a single conditional UPDATE that succeeds only if enough is available.
+     * Never write-combined, so a 200 always means the stock was taken.
+     * Requires the 'USER' role.
+     */
+    @POST
+    @Path("/{id}/reserve")
+    @Transactional
+    @RolesAllowed("USER")
+    public Response reserve(@PathParam("id") Long id, @Valid StockAdjustment adjustment) {
+        return stockResult(id, InventoryItem.decrementQuantity(id, adjustment.amount()), "Insufficient stock.");
+    }
+
+    // Maps the row count of a conditional stock UPDATE to a response.
+    private Response stockResult(Long id, int updated, String conflictMessage) {
+        if (updated == 0) {
+            if (InventoryItem.count("id", id) == 0) {
+                return Response.status(Response.Status.NOT_FOUND).entity("Item not found.").build();
+            }
+            return Response.status(Response.Status.CONFLICT).entity(conflictMessage).build();
+        }
+        Integer quantity = InventoryItem.getEntityManager()
+                .createQuery("select i.quantity from InventoryItem i where i.id = :id", Integer.class)
+                .setParameter("id", id)
+                .getSingleResult();
+        return Response.ok(Map.of("id", id, "quantity", quantity)).build();
+    }
+
     /**
      * Deletes an inventory item.
      * Requires the 'ADMIN' role.
@@ -92,8 +324,11 @@ public class InventoryResource {
     @Transactional
     @RolesAllowed("ADMIN")
     public Response delete(@PathParam("id") Long id) {
-        boolean deleted = InventoryItem.deleteById(id);
-        if (deleted) {
+        // Loaded first so the SKU can be dropped from the index
+        InventoryItem entity = InventoryItem.findById(id);
+        if (entity != null) {
+            entity.delete();
+            skuIndex.evict(entity.sku);
             return Response.noContent().build();
         } else {
             return Response.status(Response.Status.NOT_FOUND).entity("Item not found for deletion.").build();
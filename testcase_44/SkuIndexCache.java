@@ -0,0 +1,117 @@
+package com.inventory.service;
+
+import com.inventory.model.InventoryItem;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Bounded in-memory SKU to id index in front of the unique SKU column.
+ *
+ * Entries are added only once the transaction that created them has committed, and removed both
+ * immediately and again on completion of any transaction that changes or deletes a SKU. Misses fall
+ * through to an id-only query on the unique index. The least recently used entries are evicted beyond
+ * the configured size.
+ *
+ * The index can still go stale: a reader whose miss query ran before a concurrent delete committed may
+ * cache the old id after that delete's eviction, and bulk imports and changes from other instances are
+ * not tracked at all. Callers must therefore check the item they load by id and call
+ * {@link #evictStale(String, Long)} before falling back to the database when it is gone or has another SKU.
+ */
+@ApplicationScoped
+public class SkuIndexCache {
+
+    @ConfigProperty(name = "inventory.sku-cache.max-entries", defaultValue = "100000")
+    int maxEntries;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    private Map<String, Long> ids;
+
+    @PostConstruct
+    void init() {
+        ids = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Returns the id of the item with the SKU, from memory when possible.
+     * @param sku The SKU to search for.
+     * @return The id or null if no item has the SKU.
+     */
+    public Long findId(String sku) {
+        Long id = ids.get(sku);
+        if (id == null) {
+            id = InventoryItem.findIdBySku(sku);
+            if (id != null) {
+                ids.putIfAbsent(sku, id);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Caches the mapping once the current transaction commits.
+     */
+    public void putAfterCommit(String sku, Long id) {
+        afterCompletion(committed -> {
+            if (committed) {
+                ids.put(sku, id);
+            }
+        });
+    }
+
+    /**
+     * Drops the mapping now and again when the current transaction completes, whatever its outcome.
+     */
+    public void evict(String sku) {
+        ids.remove(sku);
+        afterCompletion(committed -> ids.remove(sku));
+    }
+
+    /**
+     * Drops the mapping if it still points at the given id, without needing a transaction.
+     * Used by readers that found the cached id to be missing or to carry another SKU.
+     */
+    public void evictStale(String sku, Long id) {
+        ids.remove(sku, id);
+    }
+
+    /**
+     * Drops every mapping, e.g. after a bulk change that cannot be tracked per SKU.
+     */
+    public void clear() {
+        ids.clear();
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    private void afterCompletion(Consumer<Boolean> action) {
+        transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == Status.STATUS_COMMITTED);
+            }
+        });
+    }
+}
@@ -0,0 +1,8 @@
+package com.inventory.model;
+
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Request body for the stock increment, decrement and reserve operations.
+ */
+public record StockAdjustment(@Positive(message = "Amount must be positive") int amount) {}
@@ -0,0 +1,248 @@
+package com.inventory.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional write-combining for stock adjustments on high-contention items.
+ *
+ * Instead of one UPDATE per request, each contending on the same row lock, increments and decrements
+ * for combined items are collected in memory and applied periodically: one conditional
+ * {@code quantity = quantity + net} per item, all items sent as a single JDBC batch in one transaction.
+ * If an item's net change would take its stock below zero, its adjustments are replayed one by one in
+ * arrival order and those that do not fit are rejected and logged. Combined adjustments are therefore
+ * accepted, not confirmed; reservations, which need an immediate answer, are never combined.
+ *
+ * A failed flush keeps its adjustments queued for the next one. The queue is capped at
+ * {@code max-pending} adjustments so a database outage cannot grow it without bound; once full,
+ * {@link #submit(long, int)} refuses further adjustments until a flush succeeds.
+ */
+@ApplicationScoped
+public class StockWriteCombiner {
+
+    private static final Logger LOG = Logger.getLogger(StockWriteCombiner.class);
+    // Range checked in bigint so the condition itself cannot overflow.
+    private static final String APPLY_SQL =
+            "update InventoryItem set quantity = quantity + ? where id = ? and cast(quantity as bigint) + ? between 0 and "
+                    + Integer.MAX_VALUE;
+
+    @ConfigProperty(name = "inventory.stock.write-combining.enabled", defaultValue = "false")
+    boolean enabled;
+
+    // SKUs to combine; empty means every item when combining is enabled.
+    @ConfigProperty(name = "inventory.stock.write-combining.skus")
+    Optional<Set<String>> skus;
+
+    @ConfigProperty(name = "inventory.stock.write-combining.flush-interval-ms", defaultValue = "100")
+    long flushIntervalMillis;
+
+    @ConfigProperty(name = "inventory.stock.write-combining.max-pending", defaultValue = "100000")
+    int maxPending;
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    SkuIndexCache skuIndex;
+
+    private final Map<Long, List<Integer>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile Set<Long> combinedIds = Set.of();
+    private ScheduledExecutorService flusher;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-write-combiner");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (flusher != null) {
+            flusher.shutdown();
+            flushSafely();
+        }
+    }
+
+    /**
+     * True if adjustments for the item are combined rather than applied immediately.
+     */
+    public boolean combines(long id) {
+        if (!enabled) {
+            return false;
+        }
+        return skus.map(s -> s.isEmpty() || combinedIds.contains(id)).orElse(true);
+    }
+
+    /**
+     * Queues a signed quantity change for the next flush.
+     * @return false, without queueing, if {@code max-pending} adjustments are already waiting.
+     */
+    public boolean submit(long id, int delta) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            return false;
+        }
+        pending.compute(id, (key, deltas) -> {
+            List<Integer> list = deltas == null ? new ArrayList<>() : deltas;
+            list.add(delta);
+            return list;
+        });
+        return true;
+    }
+
+    public long appliedCount() {
+        return applied.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    private void flushSafely() {
+        try {
+            refreshCombinedIds();
+            flush();
+        } catch (RuntimeException e) {
+            LOG.error("Stock write-combining flush failed; adjustments will be retried.", e);
+        }
+    }
+
+    // Resolved on every flush so renamed or newly created SKUs are picked up.
+    private void refreshCombinedIds() {
+        skus.filter(s -> !s.isEmpty()).ifPresent(configured -> {
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            QuarkusTransaction.requiringNew().run(() -> configured.forEach(sku -> {
+                Long id = skuIndex.findId(sku);
+                if (id != null) {
+                    ids.add(id);
+                }
+            }));
+            combinedIds = ids;
+        });
+    }
+
+    private void flush() {
+        Map<Long, List<Integer>> batch = new ConcurrentHashMap<>();
+        int batched = 0;
+        for (Long id : pending.keySet()) {
+            List<Integer> deltas = pending.remove(id);
+            if (deltas != null) {
+                batch.put(id, deltas);
+                batched += deltas.size();
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        FlushResult result;
+        try {
+            result = QuarkusTransaction.requiringNew().call(() -> apply(batch));
+        } catch (RuntimeException e) {
+            // Put everything back in front of newer adjustments so nothing is lost or reordered.
+            batch.forEach((id, deltas) -> pending.merge(id, deltas, (newer, older) -> {
+                older.addAll(newer);
+                return older;
+            }));
+            throw e;
+        }
+        // Counted only once committed, so a rolled-back flush is not counted again when it is retried.
+        pendingCount.addAndGet(-batched);
+        applied.addAndGet(result.applied);
+        rejected.addAndGet(result.rejected.size());
+        result.rejected.forEach(LOG::warn);
+    }
+
+    private FlushResult apply(Map<Long, List<Integer>> batch) {
+        FlushResult result = new FlushResult();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(APPLY_SQL)) {
+            List<Long> ids = new ArrayList<>();
+            List<Long> fallback = new ArrayList<>();
+            for (Map.Entry<Long, List<Integer>> entry : batch.entrySet()) {
+                long net = 0;
+                for (int delta : entry.getValue()) {
+                    net += delta;
+                }
+                if (net < Integer.MIN_VALUE || net > Integer.MAX_VALUE) {
+                    // Cannot be sent as one int; clamping it would write the wrong quantity.
+                    fallback.add(entry.getKey());
+                } else {
+                    ids.add(entry.getKey());
+                    addBatch(statement, entry.getKey(), (int) net);
+                }
+            }
+            int[] counts = ids.isEmpty() ? new int[0] : statement.executeBatch();
+
+            for (int i = 0; i < ids.size(); i++) {
+                if (counts[i] == 0) {
+                    fallback.add(ids.get(i));
+                } else {
+                    result.applied += batch.get(ids.get(i)).size();
+                }
+            }
+            for (Long id : fallback) {
+                applyOneByOne(statement, id, batch.get(id), result);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not apply combined stock adjustments.", e);
+        }
+        return result;
+    }
+
+    // The net change did not fit (or the item is gone): apply in arrival order, rejecting what does not fit.
+    private void applyOneByOne(PreparedStatement statement, Long id, List<Integer> deltas, FlushResult result)
+            throws SQLException {
+        for (int delta : deltas) {
+            addBatch(statement, id, delta);
+            if (statement.executeBatch()[0] == 0) {
+                result.rejected.add(String.format(
+                        "Rejected combined stock adjustment %+d for item %d: item missing or stock out of range.", delta, id));
+            } else {
+                result.applied++;
+            }
+        }
+    }
+
+    private static void addBatch(PreparedStatement statement, long id, int delta) throws SQLException {
+        statement.setInt(1, delta);
+        statement.setLong(2, id);
+        statement.setLong(3, delta);
+        statement.addBatch();
+    }
+
+    // Outcome of one flush transaction, published to the counters and the log only after it commits.
+    private static final class FlushResult {
+        long applied;
+        final List<String> rejected = new ArrayList<>();
+    }
+}